@@ -1,6 +1,8 @@
+import json
 import os
+from concurrent.futures import ThreadPoolExecutor, as_completed
 
-from flask import Flask, request, jsonify
+from flask import Flask, Response, request, jsonify, stream_with_context
 import requests
 from bs4 import BeautifulSoup
 import urllib.parse
@@ -9,6 +11,9 @@ from scraper_error_code import ScraperErrorCode
 
 app = Flask(__name__)
 
+MAX_BATCH_SIZE = int(os.environ.get("MAX_BATCH_SIZE", 50))
+BATCH_WORKERS = int(os.environ.get("BATCH_WORKERS", 4))
+
 
 @app.route('/find_price', methods=['POST'])
 def find_price_endpoint():
@@ -82,8 +87,43 @@ def scrape_direct_url_endpoint():
 
     if not data or 'url' not in data:
         return make_error_response(ScraperErrorCode.MISSING_PARAM, "Missing parameter 'url'", 400)
-    url = data['url']
 
+    body, status_code = scrape_url(data['url'])
+    result = jsonify(body), status_code
+
+    print(result)
+    return result
+
+@app.route('/scrape_urls', methods=['POST'])
+def scrape_urls_endpoint():
+    data = request.get_json()
+
+    if not data or not data.get('urls'):
+        return make_error_response(ScraperErrorCode.MISSING_PARAM, "Missing parameter 'urls'", 400)
+    urls = data['urls']
+
+    if len(urls) > MAX_BATCH_SIZE:
+        return make_error_response(ScraperErrorCode.BATCH_TOO_LARGE, f"At most {MAX_BATCH_SIZE} urls per request", 400)
+
+    # One JSON line per url, written as soon as that url is scraped, so the caller can use results early
+    return Response(stream_with_context(stream_scrape_results(urls)), mimetype='application/x-ndjson')
+
+def stream_scrape_results(urls):
+    with ThreadPoolExecutor(max_workers=BATCH_WORKERS) as executor:
+        futures = {executor.submit(scrape_url, url): url for url in urls}
+        for future in as_completed(futures):
+            url = futures[future]
+            try:
+                body, status_code = future.result()
+            except Exception as e:
+                print(f"Scraping error: {e}")
+                body, status_code = error_body(ScraperErrorCode.SCRAPING_ERROR, "Scraping failed"), 500
+
+            line = {"url": url, "status": status_code}
+            line["result" if status_code == 200 else "error"] = body
+            yield json.dumps(line) + "\n"
+
+def scrape_url(url):
     parsed_url = urllib.parse.urlparse(url)
     domain = parsed_url.hostname
 
@@ -96,22 +136,19 @@ def scrape_direct_url_endpoint():
     is_valid_domain = domain and (domain == "ceneo.pl" or domain.endswith(".ceneo.pl"))
 
     if not is_valid_domain:
-        return make_error_response(ScraperErrorCode.INVALID_DOMAIN, "Invalid link not from ceneo", 400)
+        return error_body(ScraperErrorCode.INVALID_DOMAIN, "Invalid link not from ceneo"), 400
 
     title, price = extract_cheapest_offer(url)
 
     if price == 0.0:
-        return make_error_response(ScraperErrorCode.PRICE_PARSING_ERROR, "Invalid price", 422)
+        return error_body(ScraperErrorCode.PRICE_PARSING_ERROR, "Invalid price"), 422
 
-    result =  jsonify({
+    return {
         "found_product_name": title,
         "price": price,
         "currency": "PLN",
         "ceneo_url": url
-    }), 200
-
-    print(result)
-    return result
+    }, 200
 
 def extract_cheapest_offer(product_url):
     print(f"Scraping product page: {product_url}")
@@ -156,10 +193,13 @@ def extract_cheapest_offer(product_url):
     return product_title, 0.0
 
 def make_error_response(error_enum: ScraperErrorCode, message: str, status_code: int):
-    return jsonify({
+    return jsonify(error_body(error_enum, message)), status_code
+
+def error_body(error_enum: ScraperErrorCode, message: str):
+    return {
         "errorCode": error_enum.value,
         "message": message
-    }), status_code
+    }
 
 
 
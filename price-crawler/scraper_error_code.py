@@ -7,4 +7,5 @@ class ScraperErrorCode(Enum):
     INVALID_DOMAIN = "INVALID_DOMAIN"
     CONNECTION_ERROR = "CONNECTION_ERROR"
     PRICE_PARSING_ERROR = "PRICE_PARSING_ERROR"
-    SCRAPING_ERROR = "SCRAPING_ERROR"
\ No newline at end of file
+    SCRAPING_ERROR = "SCRAPING_ERROR"
+    BATCH_TOO_LARGE = "BATCH_TOO_LARGE"
\ No newline at end of file
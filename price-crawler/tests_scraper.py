@@ -1,3 +1,4 @@
+import json
 import unittest
 from unittest.mock import patch, MagicMock
 from bs4 import BeautifulSoup
@@ -210,5 +211,51 @@ class TestFlaskEndpoints(unittest.TestCase):
         self.assertEqual(data['errorCode'], ScraperErrorCode.MISSING_PARAM.value)
 
 
+    @patch('main.extract_cheapest_offer')
+    def test_scrape_urls_streams_one_line_per_url(self, mock_extract):
+        mock_extract.side_effect = lambda url: ("Item", 50.0) if url.endswith("/1") else ("Item", 0.0)
+        payload = {"urls": ["https://www.ceneo.pl/1", "https://www.ceneo.pl/2", "https://www.google.com"]}
+
+        response = self.app.post('/scrape_urls', json=payload)
+        lines = [json.loads(line) for line in response.get_data(as_text=True).splitlines()]
+        by_url = {line['url']: line for line in lines}
+
+        self.assertEqual(response.status_code, 200)
+        self.assertEqual(response.mimetype, "application/x-ndjson")
+        self.assertEqual(len(lines), 3)
+        self.assertEqual(by_url["https://www.ceneo.pl/1"]['status'], 200)
+        self.assertEqual(by_url["https://www.ceneo.pl/1"]['result']['price'], 50.0)
+        self.assertEqual(by_url["https://www.ceneo.pl/2"]['status'], 422)
+        self.assertEqual(by_url["https://www.ceneo.pl/2"]['error']['errorCode'], ScraperErrorCode.PRICE_PARSING_ERROR.value)
+        self.assertEqual(by_url["https://www.google.com"]['error']['errorCode'], ScraperErrorCode.INVALID_DOMAIN.value)
+
+    @patch('main.extract_cheapest_offer')
+    def test_scrape_urls_reports_scraping_error_for_failing_url(self, mock_extract):
+        mock_extract.side_effect = RuntimeError("boom")
+
+        response = self.app.post('/scrape_urls', json={"urls": ["https://www.ceneo.pl/1"]})
+        line = json.loads(response.get_data(as_text=True).splitlines()[0])
+
+        self.assertEqual(line['status'], 500)
+        self.assertEqual(line['error']['errorCode'], ScraperErrorCode.SCRAPING_ERROR.value)
+
+    def test_scrape_urls_missing_param(self):
+        response = self.app.post('/scrape_urls', json={"urls": []})
+        data = response.get_json()
+
+        self.assertEqual(response.status_code, 400)
+        self.assertEqual(data['errorCode'], ScraperErrorCode.MISSING_PARAM.value)
+
+    @patch('main.MAX_BATCH_SIZE', 2)
+    def test_scrape_urls_rejects_too_large_batch(self):
+        payload = {"urls": ["https://www.ceneo.pl/1", "https://www.ceneo.pl/2", "https://www.ceneo.pl/3"]}
+
+        response = self.app.post('/scrape_urls', json=payload)
+        data = response.get_json()
+
+        self.assertEqual(response.status_code, 400)
+        self.assertEqual(data['errorCode'], ScraperErrorCode.BATCH_TOO_LARGE.value)
+
+
 if __name__ == '__main__':
     unittest.main()
\ No newline at end of file
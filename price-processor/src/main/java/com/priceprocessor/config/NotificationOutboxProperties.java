@@ -0,0 +1,51 @@
+package com.priceprocessor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notification.outbox")
+@Getter
+@Setter
+public class NotificationOutboxProperties {
+
+    private int batchSize = 50;
+    /**
+     * How long claimed notifications are hidden from other relay runs while they are being published.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(1);
+    /**
+     * How long the relay waits for broker acknowledgements of one batch before treating the rest as failed.
+     */
+    private Duration publishTimeout = Duration.ofSeconds(10);
+    /**
+     * Delay before the first retry; doubled on every further failure up to {@code maxBackoff}.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofMinutes(30);
+    /**
+     * Failed publishes after which a notification is parked instead of retried.
+     */
+    private int maxAttempts = 10;
+    private Digest digest = new Digest();
+
+    @Getter
+    @Setter
+    public static class Digest {
+        /**
+         * Combines all pending notifications of one recipient claimed in the same relay batch into a single message.
+         */
+        private boolean enabled = false;
+        /**
+         * Tumbling window that holds notifications back so drops found close together end up in one digest.
+         * Only meant for instances that stay up and relay on schedule: held rows are not due yet when the
+         * end-of-run relay of a cron-triggered refresh runs. Zero sends right away, which still merges the drops
+         * of a single refresh run relayed at its end.
+         */
+        private Duration window = Duration.ZERO;
+    }
+}
@@ -0,0 +1,30 @@
+package com.priceprocessor.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@RequiredArgsConstructor
+public class PriceUpdateConfig {
+
+    private final PriceUpdateProperties priceUpdateProperties;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService priceRefreshExecutor() {
+        return Executors.newFixedThreadPool(
+                priceUpdateProperties.getConcurrency(),
+                new CustomizableThreadFactory("price-refresh-")
+        );
+    }
+
+    // A single worker: runs never overlap on one instance, PriceUpdateJobManager attaches triggers to the running job
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService priceUpdateJobExecutor() {
+        return Executors.newSingleThreadExecutor(new CustomizableThreadFactory("price-update-job-"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.priceprocessor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "price-update")
+@Getter
+@Setter
+public class PriceUpdateProperties {
+
+    private int batchSize = 20;
+    private int concurrency = 4;
+    /**
+     * Scrapes kept in flight at once when the price client is non-blocking; they do not occupy refresh threads.
+     */
+    private int maxInFlight = 256;
+    /**
+     * Wall-clock limit for a single update run. Keep it well below the Cloud Run request timeout.
+     */
+    private Duration timeBudget = Duration.ofSeconds(90);
+    /**
+     * How long claimed products stay reserved for one worker. Expired leases are picked up again,
+     * which recovers products claimed by an instance that crashed mid-batch.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(5);
+    private HistoryMode historyMode = HistoryMode.ALL;
+    private Schedule schedule = new Schedule();
+    private Dispatcher dispatcher = new Dispatcher();
+
+    public enum HistoryMode {
+        /**
+         * Every successful check writes a price history row.
+         */
+        ALL,
+        /**
+         * A history row is only written when the price differs from the current one;
+         * repeated prices just move {@code priceConfirmedAt} on the observation.
+         */
+        CHANGES_ONLY
+    }
+
+    @Getter
+    @Setter
+    public static class Schedule {
+        /**
+         * Shortest interval between two checks, used for volatile products and after failed checks.
+         */
+        private Duration minInterval = Duration.ofHours(1);
+        /**
+         * Longest interval between two checks, used for products whose price did not move recently.
+         */
+        private Duration maxInterval = Duration.ofHours(24);
+        /**
+         * How far back the price history is inspected when counting price changes.
+         */
+        private Duration lookback = Duration.ofDays(14);
+        /**
+         * Delay before retrying a product after its first failed refresh; doubled with every further failure
+         * and capped at {@link #maxInterval}.
+         */
+        private Duration retryBackoff = Duration.ofMinutes(5);
+        /**
+         * Random spread applied to retry delays, as a fraction of the delay, so products that failed
+         * together do not all come back at the same moment.
+         */
+        private double retryJitter = 0.2;
+    }
+
+    @Getter
+    @Setter
+    public static class Dispatcher {
+        /**
+         * Upper bound on products per second handed to the scraper by the in-process scheduler,
+         * so products that become due together are spread out instead of sent in one burst.
+         */
+        private double maxRate = 2.0;
+        /**
+         * How often the in-memory schedule is rebuilt from the database, picking up changes made elsewhere.
+         */
+        private Duration resyncInterval = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,97 @@
+package com.priceprocessor.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP transport of the scraper client: a pooled Apache HttpClient with keep-alive, bounded connect, pool and
+ * read timeouts and transparent gzip decompression. The pool only talks to the scraper, so it is sized
+ * from the refresh concurrency unless configured explicitly. Non-blocking calls go through the JDK HttpClient,
+ * which multiplexes all in-flight requests on its selector thread and a small completion pool.
+ */
+@Configuration
+public class ScraperHttpClientConfig {
+
+    // Connections left for user-triggered searches while a refresh uses the whole concurrency
+    private static final int USER_REQUEST_HEADROOM = 4;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager scraperConnectionManager(ScraperProperties scraperProperties,
+                                                                       PriceUpdateProperties priceUpdateProperties) {
+        ScraperProperties.Http http = scraperProperties.getHttp();
+        int maxConnections = http.getMaxConnections() > 0
+                ? http.getMaxConnections()
+                : priceUpdateProperties.getConcurrency() + USER_REQUEST_HEADROOM;
+
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient scraperHttpClient(PoolingHttpClientConnectionManager scraperConnectionManager,
+                                                 ScraperProperties scraperProperties) {
+        ScraperProperties.Http http = scraperProperties.getHttp();
+
+        return HttpClients.custom()
+                .setConnectionManager(scraperConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getPoolTimeout()))
+                        .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient scraperHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(scraperHttpClient));
+    }
+
+    @Bean
+    public MeterBinder scraperConnectionPoolMetrics(PoolingHttpClientConnectionManager scraperConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(scraperConnectionManager, "scraper");
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService scraperAsyncExecutor(ScraperProperties scraperProperties) {
+        return Executors.newFixedThreadPool(
+                scraperProperties.getHttp().getAsyncThreads(),
+                new CustomizableThreadFactory("scraper-async-")
+        );
+    }
+
+    @Bean
+    public HttpClient scraperAsyncHttpClient(ScraperProperties scraperProperties, ExecutorService scraperAsyncExecutor) {
+        // The scraper is a Flask app speaking HTTP/1.1, skip the h2c upgrade attempt
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(scraperProperties.getHttp().getConnectTimeout())
+                .executor(scraperAsyncExecutor)
+                .build();
+    }
+}
@@ -5,6 +5,10 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "scraper.api")
 @Getter
@@ -13,12 +17,109 @@ public class ScraperProperties {
 
     private String baseUrl;
     private Paths paths;
+    /**
+     * Most URLs sent in one batch request; larger batches are split.
+     */
+    private int maxBatchSize = 25;
+    private RateLimit rateLimit = new RateLimit();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Http http = new Http();
+    private SearchCache searchCache = new SearchCache();
 
     @Getter
     @Setter
     public static class Paths {
         private String search;
         private String direct;
+        /**
+         * NDJSON batch endpoint; when empty, URLs are always checked one call at a time.
+         */
+        private String batch;
+    }
+
+    @Getter
+    @Setter
+    public static class RateLimit {
+        private Limit defaultLimit = new Limit();
+        /**
+         * Overrides keyed by store domain without the {@code www.} prefix, e.g. {@code domains[allegro.pl]}.
+         */
+        private Map<String, Limit> domains = new HashMap<>();
+        /**
+         * Longest time a call waits for a permit before it fails instead.
+         */
+        private Duration maxWait = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private double permitsPerSecond = 1.0;
+        /**
+         * Calls that may go out back to back after the domain was idle.
+         */
+        private int burst = 3;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        /**
+         * Number of most recent calls the failure and slow call rates are computed over.
+         */
+        private int slidingWindowSize = 20;
+        /**
+         * Calls needed in the window before the rates are evaluated at all.
+         */
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 50;
+        private Duration slowCallThreshold = Duration.ofSeconds(10);
+        private double slowCallRateThreshold = 80;
+        /**
+         * How long calls fail fast before half-open probes are let through.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        /**
+         * Longest wait for response data on an open connection, so a hung scraper cannot block a refresh thread.
+         */
+        private Duration readTimeout = Duration.ofSeconds(20);
+        /**
+         * Longest wait for a free connection from the pool.
+         */
+        private Duration poolTimeout = Duration.ofSeconds(5);
+        /**
+         * Pool size; {@code 0} sizes it from {@code price-update.concurrency} plus headroom for user requests.
+         */
+        private int maxConnections = 0;
+        /**
+         * Idle keep-alive connections older than this are closed instead of reused.
+         */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        /**
+         * Threads completing responses of the non-blocking client; in-flight scrapes do not occupy them while waiting.
+         */
+        private int asyncThreads = 2;
+    }
+
+    @Getter
+    @Setter
+    public static class SearchCache {
+        private long maximumSize = 1000;
+        /**
+         * How long a found product and its price are reused for the same search.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+        /**
+         * How long a search the store had no product for is answered as not found without asking again.
+         */
+        private Duration notFoundTtl = Duration.ofMinutes(2);
     }
 
     public String getSearchUrl() {
@@ -28,4 +129,12 @@ public class ScraperProperties {
     public String getDirectUrl() {
         return baseUrl + paths.direct;
     }
-}
\ No newline at end of file
+
+    public boolean hasBatchUrl() {
+        return paths.batch != null && !paths.batch.isBlank();
+    }
+
+    public String getBatchUrl() {
+        return baseUrl + paths.batch;
+    }
+}
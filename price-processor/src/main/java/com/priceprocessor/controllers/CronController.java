@@ -1,25 +1,44 @@
 package com.priceprocessor.controllers;
 
-import com.priceprocessor.services.PriceUpdateService;
+import com.priceprocessor.dtos.api.PriceUpdateJobResponse;
+import com.priceprocessor.services.PriceUpdateJobManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+
 @RestController
 @RequestMapping("/api/cron")
 @RequiredArgsConstructor
 @Slf4j
 public class CronController {
 
-    private final PriceUpdateService priceUpdateService;
+    private final PriceUpdateJobManager priceUpdateJobManager;
 
+    /**
+     * Starts a price update job, or returns the one already running on any instance, with 202 and the job's status URL.
+     */
     @PostMapping("/update-prices")
-    public ResponseEntity<String> triggerBatchUpdate() {
+    public ResponseEntity<PriceUpdateJobResponse> triggerBatchUpdate() {
         log.info("Received cron request to update prices");
-        int updatedCount = priceUpdateService.updateOutdatedPrices();
-        return ResponseEntity.ok("Batch update finished. Processed: " + updatedCount);
+        PriceUpdateJobResponse job = priceUpdateJobManager.startOrAttach();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/cron/jobs/" + job.jobId()))
+                .body(job);
+    }
+
+    /**
+     * Status and partial results of a job, served by any instance; 404 JOB_NOT_FOUND for unknown ids and for
+     * finished jobs older than a week. A job whose instance stopped is reported as FAILED once it stops making progress.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PriceUpdateJobResponse> getJobStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(priceUpdateJobManager.getJobStatus(jobId));
     }
 }
\ No newline at end of file
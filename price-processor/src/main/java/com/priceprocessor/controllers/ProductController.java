@@ -2,6 +2,7 @@ package com.priceprocessor.controllers;
 
 import com.priceprocessor.dtos.api.*;
 import com.priceprocessor.services.ProductService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -38,6 +39,11 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductDetails(id));
     }
 
+    @PutMapping("/{id}/alert-rule")
+    public ResponseEntity<PriceAlertRule> updateAlertRule(@PathVariable Long id, @RequestBody @Valid PriceAlertRule rule) {
+        return ResponseEntity.ok(productService.updateAlertRule(id, rule));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
         productService.deleteObservedProduct(id);
@@ -0,0 +1,7 @@
+package com.priceprocessor.dtos.api;
+
+public record BatchUpdateResult(
+        int processed,
+        int failed,
+        long remaining
+) {}
\ No newline at end of file
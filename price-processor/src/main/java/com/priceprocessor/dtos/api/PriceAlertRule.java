@@ -0,0 +1,18 @@
+package com.priceprocessor.dtos.api;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+
+import java.math.BigDecimal;
+
+/**
+ * Alert thresholds of one observation. With both fields empty, every price drop is reported.
+ */
+public record PriceAlertRule(
+        @DecimalMin(value = "0.01", message = "Target price must be positive")
+        BigDecimal targetPrice,
+
+        @DecimalMin(value = "0.01", message = "Minimum drop must be positive")
+        @DecimalMax(value = "100", message = "Minimum drop cannot exceed 100 percent")
+        BigDecimal minDropPercent
+) {}
@@ -0,0 +1,31 @@
+package com.priceprocessor.dtos.api;
+
+import com.priceprocessor.models.PriceUpdateJob;
+
+import java.time.LocalDateTime;
+
+public record PriceUpdateJobResponse(
+        String jobId,
+        PriceUpdateJob.Status status,
+        int processed,
+        int failed,
+        Long remaining,
+        double productsPerSecond,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        String error
+) {
+    public static PriceUpdateJobResponse mapToDto(PriceUpdateJob job, Long remaining) {
+        return new PriceUpdateJobResponse(
+                job.getId(),
+                job.getStatus(),
+                job.getProcessed(),
+                job.getFailed(),
+                remaining,
+                Math.round(job.getProductsPerSecond() * 100) / 100.0,
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getError()
+        );
+    }
+}
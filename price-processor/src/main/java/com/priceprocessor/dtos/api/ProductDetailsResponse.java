@@ -10,7 +10,13 @@ public record ProductDetailsResponse(
         String productUrl,
         BigDecimal currentPrice,
         String userEmail,
-        List<PriceHistoryDto> priceHistory
+        List<PriceHistoryDto> priceHistory,
+        PriceAlertRule alertRule
 ) {
+    public ProductDetailsResponse(Long id, String productName, String productUrl, BigDecimal currentPrice,
+                                  String userEmail, List<PriceHistoryDto> priceHistory) {
+        this(id, productName, productUrl, currentPrice, userEmail, priceHistory, null);
+    }
+
     public record PriceHistoryDto(BigDecimal price, LocalDateTime checkedAt) {}
 }
\ No newline at end of file
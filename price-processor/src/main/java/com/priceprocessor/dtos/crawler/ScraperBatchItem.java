@@ -0,0 +1,13 @@
+package com.priceprocessor.dtos.crawler;
+
+import com.priceprocessor.dtos.errors.ScraperErrorResponse;
+
+/**
+ * One NDJSON line of a batch scrape: the result for a single URL, or the error the scraper reported for it.
+ */
+public record ScraperBatchItem(
+        String url,
+        int status,
+        PriceResponse result,
+        ScraperErrorResponse error
+) {}
@@ -0,0 +1,6 @@
+package com.priceprocessor.dtos.crawler;
+
+import java.util.List;
+
+public record ScraperBatchRequest(List<String> urls) {
+}
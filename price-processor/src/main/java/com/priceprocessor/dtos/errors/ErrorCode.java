@@ -7,6 +7,8 @@ public enum ErrorCode {
     PRODUCT_NOT_FOUND,
     PRODUCT_NOT_IN_STORE,
 
+    JOB_NOT_FOUND,
+
     VALIDATION_FAILED,
     INTERNAL_SERVER_ERROR,
 
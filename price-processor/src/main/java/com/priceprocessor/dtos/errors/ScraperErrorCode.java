@@ -6,5 +6,6 @@ public enum ScraperErrorCode {
     INVALID_DOMAIN,
     CONNECTION_ERROR,
     PRICE_PARSING_ERROR,
-    SCRAPING_ERROR
+    SCRAPING_ERROR,
+    BATCH_TOO_LARGE
 }
\ No newline at end of file
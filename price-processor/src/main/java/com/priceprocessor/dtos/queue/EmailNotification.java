@@ -0,0 +1,19 @@
+package com.priceprocessor.dtos.queue;
+
+/**
+ * Message published to the email sender. {@code dedupeId} stays the same when a notification is re-sent,
+ * so consumers can skip duplicates caused by at-least-once delivery.
+ */
+public record EmailNotification(
+        int version,
+        String dedupeId,
+        String to,
+        String subject,
+        String body
+) {
+    public static final int CURRENT_VERSION = 1;
+
+    public static EmailNotification of(String dedupeId, String to, String subject, String body) {
+        return new EmailNotification(CURRENT_VERSION, dedupeId, to, subject, body);
+    }
+}
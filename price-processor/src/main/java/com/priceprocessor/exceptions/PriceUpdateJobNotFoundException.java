@@ -0,0 +1,7 @@
+package com.priceprocessor.exceptions;
+
+public class PriceUpdateJobNotFoundException extends RuntimeException {
+    public PriceUpdateJobNotFoundException(String jobId) {
+        super("Price update job " + jobId + " not found.");
+    }
+}
@@ -0,0 +1,5 @@
+package com.priceprocessor.exceptions.crawler;
+
+public class RateLimitExceededException extends ScraperException {
+    public RateLimitExceededException(String message) { super(message); }
+}
@@ -0,0 +1,5 @@
+package com.priceprocessor.exceptions.crawler;
+
+public class ScraperUnavailableException extends ScraperException {
+    public ScraperUnavailableException(String message) { super(message); }
+}
@@ -3,6 +3,7 @@ package com.priceprocessor.handlers;
 import com.priceprocessor.dtos.errors.ApiErrorResponse;
 import com.priceprocessor.dtos.errors.ErrorCode;
 import com.priceprocessor.exceptions.ProductNotFoundException;
+import com.priceprocessor.exceptions.PriceUpdateJobNotFoundException;
 import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
 import com.priceprocessor.exceptions.UserAlreadyExistsException;
 import com.priceprocessor.exceptions.InvalidCredentialsException;
@@ -108,6 +109,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(PriceUpdateJobNotFoundException.class)
+    public ResponseEntity<ApiErrorResponse> handleJobNotFound(PriceUpdateJobNotFoundException ex, HttpServletRequest request) {
+        log.info("Resource not found: {} | URL: {}", ex.getMessage(), request.getRequestURI());
+
+        ApiErrorResponse error = new ApiErrorResponse(
+                ex.getMessage(),
+                ErrorCode.JOB_NOT_FOUND,
+                HttpStatus.NOT_FOUND.value(),
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleGeneralException(
             Exception ex,
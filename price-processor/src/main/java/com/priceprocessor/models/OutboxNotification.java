@@ -0,0 +1,74 @@
+package com.priceprocessor.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email notification waiting to be published. Rows are written in the same transaction as the price update
+ * that produced them and deleted once the broker acknowledged the message.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notification_outbox_next_attempt_at", columnList = "next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq")
+    @SequenceGenerator(name = "notification_outbox_seq", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, length = 2000)
+    private String body;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * When the relay may pick the row up next. Claiming pushes it forward by the lease duration;
+     * {@code null} means the notification ran out of attempts and is parked for manual inspection.
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public static OutboxNotification pending(String recipient, String subject, String body, LocalDateTime now) {
+        return OutboxNotification.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+    }
+
+    public void claimUntil(LocalDateTime leaseExpiresAt) {
+        this.nextAttemptAt = leaseExpiresAt;
+    }
+
+    public void recordFailure(String error, LocalDateTime retryAt) {
+        this.attempts++;
+        this.lastError = error == null || error.length() <= 500 ? error : error.substring(0, 500);
+        this.nextAttemptAt = retryAt;
+    }
+
+    public boolean isParked() {
+        return nextAttemptAt == null;
+    }
+}
@@ -7,19 +7,24 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "price_history")
+@Table(name = "price_history", indexes = {
+        @Index(name = "idx_price_history_observation_checked_at", columnList = "product_observation_id, checked_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class PriceHistory {
 
+    // Pooled sequence (a table-backed sequence on MySQL) instead of IDENTITY, so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_history_seq")
+    @SequenceGenerator(name = "price_history_seq", sequenceName = "price_history_seq", allocationSize = 50)
     private Long id;
 
     private BigDecimal price;
 
+    @Column(name = "checked_at")
     private LocalDateTime checkedAt;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,101 @@
+package com.priceprocessor.models;
+
+import com.priceprocessor.dtos.api.BatchUpdateResult;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * One background run of the price update, stored so that any instance can attach to it or report its status.
+ * Counters are saved after every applied page, so a running job already reports partial results, and
+ * {@code updatedAt} doubles as a heartbeat that tells a running job from one whose instance went away.
+ */
+@Entity
+@Table(name = "price_update_jobs", indexes = {
+        @Index(name = "idx_price_update_jobs_status_started_at", columnList = "status, started_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PriceUpdateJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "started_at", nullable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    private int processed;
+
+    private int failed;
+
+    private Long remaining;
+
+    @Column(length = 500)
+    private String error;
+
+    public static PriceUpdateJob started(String id, LocalDateTime now) {
+        return PriceUpdateJob.builder()
+                .id(id)
+                .status(Status.RUNNING)
+                .startedAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    public void recordPage(int pageProcessed, int pageFailed, LocalDateTime now) {
+        this.processed += pageProcessed;
+        this.failed += pageFailed;
+        this.updatedAt = now;
+    }
+
+    public void complete(BatchUpdateResult result, LocalDateTime now) {
+        this.remaining = result.remaining();
+        this.finishedAt = now;
+        this.updatedAt = now;
+        this.status = Status.COMPLETED;
+    }
+
+    public void fail(String error, LocalDateTime now) {
+        this.error = error == null || error.length() <= 500 ? error : error.substring(0, 500);
+        this.finishedAt = now;
+        this.updatedAt = now;
+        this.status = Status.FAILED;
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    /**
+     * A running job that has not saved progress for longer than a page can take lost its instance.
+     */
+    public boolean isAbandoned(LocalDateTime now, Duration staleAfter) {
+        return isRunning() && updatedAt.plus(staleAfter).isBefore(now);
+    }
+
+    public double getProductsPerSecond() {
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        long millis = Math.max(Duration.between(startedAt, end).toMillis(), 1);
+        return processed * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,8 @@
+package com.priceprocessor.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Id and next check time of an observation, loaded without the rest of the entity.
+ */
+public record ProductDueTime(Long productId, LocalDateTime nextCheckAt) {}
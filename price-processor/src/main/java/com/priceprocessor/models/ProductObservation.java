@@ -9,15 +9,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "product_observations")
+@Table(name = "product_observations", indexes = {
+        @Index(name = "idx_product_observations_next_check_at", columnList = "next_check_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class ProductObservation {
 
+    // Pooled sequence (a table-backed sequence on MySQL) instead of IDENTITY, so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_observations_seq")
+    @SequenceGenerator(name = "product_observations_seq", sequenceName = "product_observations_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -31,12 +35,52 @@ public class ProductObservation {
 
     private BigDecimal currentPrice;
 
+    /**
+     * Alert once the price falls to or below this value. {@code null} disables the rule.
+     */
+    private BigDecimal targetPrice;
+
+    /**
+     * Alert when a single refresh drops the price by at least this many percent. {@code null} disables the rule.
+     */
+    @Column(precision = 5, scale = 2)
+    private BigDecimal minDropPercent;
+
     private LocalDateTime lastCheckedAt;
 
+    /**
+     * Last time the scraper confirmed {@link #currentPrice}. With change-only history this is the only trace
+     * of checks that found the same price.
+     */
+    private LocalDateTime priceConfirmedAt;
+
+    @Column(name = "next_check_at")
+    private LocalDateTime nextCheckAt;
+
+    @Column(length = 36)
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * Consecutive failed refreshes, reset by the next successful one. Drives the retry backoff.
+     */
+    private int failureCount;
+
+    @Column(length = 100)
+    private String lastErrorClass;
+
+    /**
+     * Set when a refresh failed permanently (the product is gone or the URL is not a supported store).
+     * Parked products are never claimed for refresh again.
+     */
+    private LocalDateTime parkedAt;
+
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
     @OneToMany(mappedBy = "productObservation", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("checkedAt ASC")
     @Builder.Default
     private List<PriceHistory> priceHistory = new ArrayList<>();
 
@@ -45,14 +89,83 @@ public class ProductObservation {
         createdAt = LocalDateTime.now();
     }
 
+    public void acquireLease(String owner, LocalDateTime expiresAt) {
+        this.leaseOwner = owner;
+        this.leaseExpiresAt = expiresAt;
+    }
+
+    public boolean isLeasedBy(String owner) {
+        return owner.equals(this.leaseOwner);
+    }
+
+    public void releaseLease() {
+        this.leaseOwner = null;
+        this.leaseExpiresAt = null;
+    }
+
     public void addPriceHistory(BigDecimal price, LocalDateTime date) {
-        PriceHistory history = PriceHistory.builder()
+        this.priceHistory.add(recordPrice(price, date));
+    }
+
+    /**
+     * Updates the current price and returns the matching history row without touching the lazy
+     * {@code priceHistory} collection, so refreshing a product never loads its whole history.
+     * The caller is responsible for persisting the returned row.
+     */
+    public PriceHistory recordPrice(BigDecimal price, LocalDateTime date) {
+        this.currentPrice = price;
+        confirmCurrentPrice(date);
+        return PriceHistory.builder()
                 .price(price)
                 .checkedAt(date)
                 .productObservation(this)
                 .build();
-        this.priceHistory.add(history);
-        this.currentPrice = price;
+    }
+
+    public boolean hasCurrentPrice(BigDecimal price) {
+        return currentPrice != null && currentPrice.compareTo(price) == 0;
+    }
+
+    /**
+     * Whether moving from {@link #currentPrice} to the new price triggers one of the observer's rules.
+     * Without rules any drop alerts; otherwise the target price or the minimum drop, whichever comes first.
+     * A target price already reached is skipped, so the user is alerted when it is crossed, not on every later drop.
+     */
+    public boolean isAlertTriggeredBy(BigDecimal newPrice) {
+        if (currentPrice == null) {
+            return false;
+        }
+        if (targetPrice == null && minDropPercent == null) {
+            return newPrice.compareTo(currentPrice) < 0;
+        }
+        boolean targetCrossed = targetPrice != null
+                && currentPrice.compareTo(targetPrice) > 0 && newPrice.compareTo(targetPrice) <= 0;
+        boolean dropReached = minDropPercent != null
+                && newPrice.compareTo(currentPrice.multiply(BigDecimal.ONE.subtract(minDropPercent.movePointLeft(2)))) <= 0;
+        return targetCrossed || dropReached;
+    }
+
+    public void confirmCurrentPrice(LocalDateTime date) {
+        this.priceConfirmedAt = date;
         this.lastCheckedAt = date;
     }
-}
\ No newline at end of file
+
+    public void recordSuccessfulCheck() {
+        this.failureCount = 0;
+        this.lastErrorClass = null;
+    }
+
+    public void recordFailedCheck(String errorClass) {
+        this.failureCount++;
+        this.lastErrorClass = errorClass;
+    }
+
+    public void park(String errorClass, LocalDateTime date) {
+        recordFailedCheck(errorClass);
+        this.parkedAt = date;
+    }
+
+    public boolean isParked() {
+        return parkedAt != null;
+    }
+}
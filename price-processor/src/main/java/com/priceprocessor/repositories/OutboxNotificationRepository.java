@@ -0,0 +1,25 @@
+package com.priceprocessor.repositories;
+
+import com.priceprocessor.models.OutboxNotification;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxNotificationRepository extends JpaRepository<OutboxNotification, Long> {
+    // Same SKIP LOCKED claim as ProductRepository#findProductsToUpdate; parked rows (NULL) never match.
+    // Rows of one digest window share next_attempt_at, ordering by recipient keeps them in the same batch.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT n FROM OutboxNotification n WHERE n.nextAttemptAt <= :now ORDER BY n.nextAttemptAt ASC, n.recipient ASC")
+    List<OutboxNotification> findDueNotifications(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.priceprocessor.repositories;
+
+import com.priceprocessor.models.PriceHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long> {
+    @Query("SELECT h.productObservation.id AS productId, h.price AS price FROM PriceHistory h " +
+            "WHERE h.productObservation.id IN :productIds AND h.checkedAt >= :since " +
+            "ORDER BY h.productObservation.id, h.checkedAt")
+    List<PricePoint> findPricesSince(@Param("productIds") Collection<Long> productIds, @Param("since") LocalDateTime since);
+
+    interface PricePoint {
+        Long getProductId();
+        BigDecimal getPrice();
+    }
+}
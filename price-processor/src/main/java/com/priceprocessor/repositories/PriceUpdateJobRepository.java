@@ -0,0 +1,21 @@
+package com.priceprocessor.repositories;
+
+import com.priceprocessor.models.PriceUpdateJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface PriceUpdateJobRepository extends JpaRepository<PriceUpdateJob, String> {
+    Optional<PriceUpdateJob> findFirstByStatusOrderByStartedAtDesc(PriceUpdateJob.Status status);
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PriceUpdateJob j WHERE j.startedAt < :cutoff AND j.status <> com.priceprocessor.models.PriceUpdateJob.Status.RUNNING")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,11 +1,19 @@
 package com.priceprocessor.repositories;
 
+import com.priceprocessor.models.ProductDueTime;
 import com.priceprocessor.models.ProductObservation;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +21,25 @@ import java.util.Optional;
 public interface ProductRepository extends JpaRepository<ProductObservation, Long> {
     List<ProductObservation> findAllByUserEmail(String userEmail);
     Optional<ProductObservation> findByIdAndUserEmail(Long id, String userEmail);
-    @Query("SELECT p FROM ProductObservation p ORDER BY p.lastCheckedAt ASC NULLS FIRST")
-    List<ProductObservation> findProductsToUpdate(Pageable pageable);
+    // Plain ASC already puts never-scheduled rows (NULL) first on MySQL and H2 and keeps the index usable.
+    // Rows are locked FOR UPDATE SKIP LOCKED (lock timeout -2) so concurrent claimers never wait on each other.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT p FROM ProductObservation p WHERE (p.nextCheckAt IS NULL OR p.nextCheckAt <= :dueAt) " +
+            "AND (p.leaseExpiresAt IS NULL OR p.leaseExpiresAt <= :dueAt) AND p.parkedAt IS NULL ORDER BY p.nextCheckAt ASC")
+    List<ProductObservation> findProductsToUpdate(@Param("dueAt") LocalDateTime dueAt, Pageable pageable);
+    // Counts exactly what findProductsToUpdate could still claim, so rows leased by other workers are left out
+    @Query("SELECT COUNT(p) FROM ProductObservation p WHERE (p.nextCheckAt IS NULL OR p.nextCheckAt <= :dueAt) " +
+            "AND (p.leaseExpiresAt IS NULL OR p.leaseExpiresAt <= :dueAt) AND p.parkedAt IS NULL")
+    long countProductsToUpdate(@Param("dueAt") LocalDateTime dueAt);
+    // Same claim rules as findProductsToUpdate, restricted to products the in-process scheduler dispatched
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT p FROM ProductObservation p WHERE p.id IN :ids AND (p.nextCheckAt IS NULL OR p.nextCheckAt <= :dueAt) " +
+            "AND (p.leaseExpiresAt IS NULL OR p.leaseExpiresAt <= :dueAt) AND p.parkedAt IS NULL")
+    List<ProductObservation> findDueProductsByIds(@Param("ids") Collection<Long> ids, @Param("dueAt") LocalDateTime dueAt);
+    @Query("SELECT new com.priceprocessor.models.ProductDueTime(p.id, p.nextCheckAt) FROM ProductObservation p WHERE p.parkedAt IS NULL")
+    List<ProductDueTime> findAllDueTimes();
+    @Query("SELECT new com.priceprocessor.models.ProductDueTime(p.id, p.nextCheckAt) FROM ProductObservation p WHERE p.id IN :ids AND p.parkedAt IS NULL")
+    List<ProductDueTime> findDueTimesByIds(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.priceprocessor.scheduler;
+
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.models.ProductDueTime;
+import com.priceprocessor.repositories.ProductRepository;
+import com.priceprocessor.services.PriceUpdateService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatches every product to {@link PriceUpdateService#refreshProducts} at the moment its next check is due,
+ * instead of polling the database for due pages. The next due time per product is kept in a {@link DelayQueue},
+ * loaded at startup, updated when observations are added or deleted and after every refresh, and rebuilt
+ * periodically from the database. Dispatches are paced to {@code price-update.dispatcher.max-rate}.
+ */
+@Component
+@Profile("dev")
+@RequiredArgsConstructor
+@Slf4j
+public class DueTimeScheduler {
+
+    // Products that were never checked have no next check time and are due right away
+    private static final LocalDateTime DUE_NOW = LocalDateTime.MIN;
+
+    private final ProductRepository productRepository;
+    private final PriceUpdateService priceUpdateService;
+    private final PriceUpdateProperties priceUpdateProperties;
+
+    // The map holds the current due time per product; queue entries that no longer match it are stale and skipped
+    private final Map<Long, LocalDateTime> dueTimes = new ConcurrentHashMap<>();
+    private final DelayQueue<DueEntry> queue = new DelayQueue<>();
+
+    private volatile Thread dispatcher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        resync();
+        dispatcher = new Thread(this::dispatchLoop, "due-time-scheduler");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("[LOCAL DEV] Due-time scheduler started with {} products", dueTimes.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${price-update.dispatcher.resync-interval:PT10M}",
+            fixedDelayString = "${price-update.dispatcher.resync-interval:PT10M}")
+    public void resync() {
+        List<ProductDueTime> all = productRepository.findAllDueTimes();
+        Set<Long> ids = new HashSet<>();
+        all.forEach(dueTime -> {
+            ids.add(dueTime.productId());
+            schedule(dueTime.productId(), dueTime.nextCheckAt());
+        });
+        dueTimes.keySet().retainAll(ids);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ProductScheduleChangedEvent event) {
+        if (event.removed()) {
+            dueTimes.remove(event.productId());
+        } else {
+            schedule(event.productId(), event.nextCheckAt());
+        }
+    }
+
+    void schedule(Long productId, LocalDateTime nextCheckAt) {
+        LocalDateTime dueAt = nextCheckAt != null ? nextCheckAt : DUE_NOW;
+        if (!dueAt.equals(dueTimes.put(productId, dueAt))) {
+            queue.add(new DueEntry(productId, dueAt));
+        }
+    }
+
+    int scheduledCount() {
+        return dueTimes.size();
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                dispatchNext();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("[LOCAL DEV] Dispatching due products failed", e);
+            }
+        }
+    }
+
+    /**
+     * Waits for the next due product, refreshes it together with everything else already due (up to one page)
+     * and then sleeps long enough to keep the dispatch rate under the configured limit.
+     */
+    int dispatchNext() throws InterruptedException {
+        List<Long> due = takeDueProducts();
+        if (due.isEmpty()) {
+            return 0;
+        }
+        long startedAt = System.nanoTime();
+
+        // Placeholder until the refresh stores the real next check, so a product claimed elsewhere is retried later
+        LocalDateTime retryAt = LocalDateTime.now().plus(priceUpdateProperties.getLeaseDuration());
+        due.forEach(productId -> schedule(productId, retryAt));
+
+        try {
+            priceUpdateService.refreshProducts(due);
+        } finally {
+            reload(due, retryAt);
+        }
+
+        long minimumNanos = (long) (due.size() * TimeUnit.SECONDS.toNanos(1) / priceUpdateProperties.getDispatcher().getMaxRate());
+        long remainingNanos = minimumNanos - (System.nanoTime() - startedAt);
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+        return due.size();
+    }
+
+    private List<Long> takeDueProducts() throws InterruptedException {
+        List<DueEntry> entries = new ArrayList<>();
+        entries.add(queue.take());
+        queue.drainTo(entries, priceUpdateProperties.getBatchSize() - 1);
+
+        return entries.stream()
+                .filter(entry -> entry.dueAt().equals(dueTimes.get(entry.productId())))
+                .map(DueEntry::productId)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Takes over the next check written by the refresh. Products that are still due were not refreshed
+     * (claimed elsewhere or deferred by the open scraper circuit) and keep the retry placeholder.
+     */
+    private void reload(List<Long> productIds, LocalDateTime retryAt) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> missing = new HashSet<>(productIds);
+        productRepository.findDueTimesByIds(productIds).forEach(dueTime -> {
+            missing.remove(dueTime.productId());
+            boolean refreshed = dueTime.nextCheckAt() != null && dueTime.nextCheckAt().isAfter(now);
+            schedule(dueTime.productId(), refreshed ? dueTime.nextCheckAt() : retryAt);
+        });
+        missing.forEach(dueTimes::remove);
+    }
+
+    private record DueEntry(Long productId, LocalDateTime dueAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), dueAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return dueAt.compareTo(((DueEntry) other).dueAt);
+        }
+    }
+}
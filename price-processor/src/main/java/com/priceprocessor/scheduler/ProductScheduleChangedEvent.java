@@ -0,0 +1,18 @@
+package com.priceprocessor.scheduler;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when an observation is added or deleted, so the in-process scheduler can update its queue.
+ * A {@code null} next check time means the product is due right away.
+ */
+public record ProductScheduleChangedEvent(Long productId, LocalDateTime nextCheckAt, boolean removed) {
+
+    public static ProductScheduleChangedEvent scheduled(Long productId, LocalDateTime nextCheckAt) {
+        return new ProductScheduleChangedEvent(productId, nextCheckAt, false);
+    }
+
+    public static ProductScheduleChangedEvent removed(Long productId) {
+        return new ProductScheduleChangedEvent(productId, null, true);
+    }
+}
@@ -0,0 +1,104 @@
+package com.priceprocessor.services;
+
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.repositories.PriceHistoryRepository;
+import com.priceprocessor.repositories.PriceHistoryRepository.PricePoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when a product should be checked again. The interval shrinks with the number of price changes
+ * seen in the recent history: {@code maxInterval / (1 + changes)}, clamped to {@code [minInterval, maxInterval]}.
+ * Failed refreshes are retried with exponential backoff and jitter instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class CheckIntervalPolicy {
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceUpdateProperties priceUpdateProperties;
+
+    public Map<Long, LocalDateTime> nextCheckTimes(Collection<Long> productIds, LocalDateTime now) {
+        Map<Long, LocalDateTime> nextCheckTimes = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return nextCheckTimes;
+        }
+
+        Map<Long, Integer> changes = countPriceChanges(productIds, now.minus(schedule().getLookback()));
+        for (Long productId : productIds) {
+            nextCheckTimes.put(productId, now.plus(intervalFor(changes.getOrDefault(productId, 0))));
+        }
+        return nextCheckTimes;
+    }
+
+    /**
+     * A product that was just scraped on creation has no price changes yet, so it gets the longest interval.
+     */
+    public LocalDateTime firstCheckTime(LocalDateTime now) {
+        return now.plus(intervalFor(0));
+    }
+
+    public LocalDateTime retryTime(int failureCount, LocalDateTime now) {
+        Duration delay = retryDelay(failureCount);
+        double jitter = schedule().getRetryJitter();
+        if (jitter > 0) {
+            double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+            delay = Duration.ofMillis((long) (delay.toMillis() * factor));
+        }
+        return now.plus(delay);
+    }
+
+    /**
+     * {@code retryBackoff * 2^(failures - 1)}, capped at {@code maxInterval}.
+     */
+    Duration retryDelay(int failureCount) {
+        int doublings = Math.min(Math.max(failureCount - 1, 0), 30);
+        Duration delay = schedule().getRetryBackoff().multipliedBy(1L << doublings);
+
+        if (delay.compareTo(schedule().getMaxInterval()) > 0) {
+            return schedule().getMaxInterval();
+        }
+        return delay;
+    }
+
+    Duration intervalFor(int priceChanges) {
+        Duration interval = schedule().getMaxInterval().dividedBy(1L + priceChanges);
+
+        if (interval.compareTo(schedule().getMinInterval()) < 0) {
+            return schedule().getMinInterval();
+        }
+        return interval;
+    }
+
+    private Map<Long, Integer> countPriceChanges(Collection<Long> productIds, LocalDateTime since) {
+        Map<Long, Integer> changes = new HashMap<>();
+        Long previousProductId = null;
+        BigDecimal previousPrice = null;
+
+        // Points are ordered by product and time, so a change is any point that differs from its predecessor
+        for (PricePoint point : priceHistoryRepository.findPricesSince(productIds, since)) {
+            boolean sameProduct = point.getProductId().equals(previousProductId);
+
+            if (sameProduct && previousPrice != null && point.getPrice() != null
+                    && point.getPrice().compareTo(previousPrice) != 0) {
+                changes.merge(point.getProductId(), 1, Integer::sum);
+            }
+
+            previousProductId = point.getProductId();
+            previousPrice = point.getPrice();
+        }
+        return changes;
+    }
+
+    private PriceUpdateProperties.Schedule schedule() {
+        return priceUpdateProperties.getSchedule();
+    }
+}
@@ -1,10 +1,18 @@
 package com.priceprocessor.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
+
 @Service
 @RequiredArgsConstructor
 public class MetricsService {
@@ -12,20 +20,45 @@ public class MetricsService {
     private final MeterRegistry meterRegistry;
 
     private static final String SCRAPER_ERRORS_METRIC = "scraper.errors.total";
+    private static final String SCRAPER_REQUESTS_SAVED_METRIC = "scraper.requests.saved";
+    private static final String SCRAPER_RATE_LIMIT_WAIT = "scraper.ratelimit.wait";
+    private static final String SCRAPER_RATE_LIMIT_REJECTED = "scraper.ratelimit.rejected";
+    private static final String SCRAPER_CIRCUIT_STATE = "scraper.circuit.state";
+    private static final String SCRAPER_CIRCUIT_TRANSITIONS = "scraper.circuit.transitions";
+    private static final String SCRAPER_CIRCUIT_REJECTED = "scraper.circuit.rejected";
+    private static final String SCRAPER_SEARCH_CACHE = "scraper.search.cache";
+    private static final String SCRAPER_REQUESTS_COALESCING = "scraper.requests.coalescing";
     private static final String AUTH_LOGIN_METRIC = "auth.login";
     private static final String AUTH_REGISTER_METRIC = "auth.register";
     private static final String QUEUE_MAIL_SENT_METRIC = "queue.mail.sent";
+    private static final String QUEUE_MAIL_PUBLISH_LATENCY = "queue.mail.publish.latency";
     private static final String PRODUCT_PRICE_UPDATE = "product.price.update";
+    private static final String PRODUCT_PRICE_UPDATE_BATCH = "product.price.update.batch";
+    private static final String PRODUCT_PRICE_UPDATE_THROUGHPUT = "product.price.update.throughput";
+    private static final String PRODUCT_PRICE_UPDATE_PHASE = "product.price.update.phase";
+    private static final String PRODUCT_PRICE_UPDATE_PARKED = "product.price.update.parked";
+    private static final String NOTIFICATION_OUTBOX_LAG = "notification.outbox.lag";
+    private static final String NOTIFICATION_OUTBOX_RETRIES = "notification.outbox.retries";
+    private static final String NOTIFICATION_OUTBOX_PARKED = "notification.outbox.parked";
+    private static final String NOTIFICATION_DIGEST_SAVED = "notification.digest.saved";
 
     private static final String TAG_KEY_STATUS = "status";
     private static final String TAG_KEY_REASON = "reason";
     private static final String TAG_KEY_ACTION = "action";
+    private static final String TAG_KEY_PHASE = "phase";
+    private static final String TAG_KEY_BROKER = "broker";
+    private static final String TAG_KEY_DOMAIN = "domain";
+    private static final String TAG_KEY_FROM = "from";
+    private static final String TAG_KEY_TO = "to";
+    private static final String TAG_KEY_RESULT = "result";
 
     private static final String STATUS_SUCCESS = "success";
     private static final String STATUS_FAILURE = "failure";
     private static final String REASON_NONE = "none";
     private static final String ACTION_ADDED = "added";
     private static final String ACTION_DELETED = "deleted";
+    private static final String RESULT_SHARED = "shared";
+    private static final String RESULT_CALLED = "called";
 
     public void incrementScraperError(String reason) {
         Counter.builder(SCRAPER_ERRORS_METRIC)
@@ -35,6 +68,68 @@ public class MetricsService {
                 .increment();
     }
 
+    public void incrementScraperRequestsSaved(int saved) {
+        Counter.builder(SCRAPER_REQUESTS_SAVED_METRIC)
+                .description("Scraper calls avoided by sharing one result between observers of the same URL")
+                .register(meterRegistry)
+                .increment(saved);
+    }
+
+    public void recordScraperRateLimitWait(String domain, Duration wait) {
+        Timer.builder(SCRAPER_RATE_LIMIT_WAIT)
+                .description("Time a scraper call waited for a rate limit permit of its store domain")
+                .tag(TAG_KEY_DOMAIN, domain)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(wait);
+    }
+
+    public void incrementScraperRateLimitRejected(String domain) {
+        Counter.builder(SCRAPER_RATE_LIMIT_REJECTED)
+                .description("Scraper calls rejected because the wait for a permit exceeded the limit")
+                .tag(TAG_KEY_DOMAIN, domain)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public <T> void registerScraperCircuitState(T circuitBreaker, ToDoubleFunction<T> state) {
+        Gauge.builder(SCRAPER_CIRCUIT_STATE, circuitBreaker, state)
+                .description("Scraper circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exports size, evictions and hit/miss counts ({@code cache.gets}) of the search result cache.
+     */
+    public void registerScraperSearchCache(Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, SCRAPER_SEARCH_CACHE);
+    }
+
+    /**
+     * Counts scraper requests by whether they joined an identical call already in flight; shared / total is the dedup rate.
+     */
+    public void incrementScraperRequestCoalescing(boolean shared) {
+        Counter.builder(SCRAPER_REQUESTS_COALESCING)
+                .tag(TAG_KEY_RESULT, shared ? RESULT_SHARED : RESULT_CALLED)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordScraperCircuitTransition(String from, String to) {
+        Counter.builder(SCRAPER_CIRCUIT_TRANSITIONS)
+                .tag(TAG_KEY_FROM, from)
+                .tag(TAG_KEY_TO, to)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void incrementScraperCircuitRejected() {
+        Counter.builder(SCRAPER_CIRCUIT_REJECTED)
+                .description("Scraper calls failed fast because the circuit was open")
+                .register(meterRegistry)
+                .increment();
+    }
+
     public void incrementLoginSuccess() {
         incrementMetric(STATUS_SUCCESS, REASON_NONE, AUTH_LOGIN_METRIC);
     }
@@ -59,6 +154,15 @@ public class MetricsService {
         incrementMetric(STATUS_FAILURE, reason, QUEUE_MAIL_SENT_METRIC);
     }
 
+    public void recordNotificationPublishLatency(String broker, Duration latency) {
+        Timer.builder(QUEUE_MAIL_PUBLISH_LATENCY)
+                .description("Time from handing a notification to the broker client until it was acknowledged")
+                .tag(TAG_KEY_BROKER, broker)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(latency);
+    }
+
     public void incrementProductPriceUpdateSuccess() {
         incrementMetric(STATUS_SUCCESS, REASON_NONE, PRODUCT_PRICE_UPDATE);
     }
@@ -67,6 +171,63 @@ public class MetricsService {
         incrementMetric(STATUS_FAILURE, reason, PRODUCT_PRICE_UPDATE);
     }
 
+    public void incrementProductParked(String reason) {
+        Counter.builder(PRODUCT_PRICE_UPDATE_PARKED)
+                .description("Products taken out of the refresh schedule after a permanent scraper error")
+                .tag(TAG_KEY_REASON, reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordPriceUpdateBatch(int products, Duration elapsed) {
+        Timer.builder(PRODUCT_PRICE_UPDATE_BATCH)
+                .description("Wall time of a single price update batch")
+                .register(meterRegistry)
+                .record(elapsed);
+
+        DistributionSummary.builder(PRODUCT_PRICE_UPDATE_THROUGHPUT)
+                .description("Products refreshed per second in a single batch")
+                .baseUnit("products/s")
+                .register(meterRegistry)
+                .record(products * 1000.0 / Math.max(elapsed.toMillis(), 1));
+    }
+
+    public void recordPriceUpdatePhase(String phase, Duration elapsed) {
+        Timer.builder(PRODUCT_PRICE_UPDATE_PHASE)
+                .description("Time spent in a single phase of a price update batch")
+                .tag(TAG_KEY_PHASE, phase)
+                .register(meterRegistry)
+                .record(elapsed);
+    }
+
+    public void recordNotificationOutboxLag(Duration lag) {
+        Timer.builder(NOTIFICATION_OUTBOX_LAG)
+                .description("Time between writing a notification to the outbox and the broker acknowledging it")
+                .register(meterRegistry)
+                .record(lag);
+    }
+
+    public void incrementNotificationOutboxRetry(String reason) {
+        Counter.builder(NOTIFICATION_OUTBOX_RETRIES)
+                .tag(TAG_KEY_REASON, reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void incrementNotificationOutboxParked() {
+        Counter.builder(NOTIFICATION_OUTBOX_PARKED)
+                .description("Notifications that ran out of publish attempts")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void incrementNotificationDigestMessagesSaved(int saved) {
+        Counter.builder(NOTIFICATION_DIGEST_SAVED)
+                .description("Messages avoided by merging a recipient's notifications into one digest")
+                .register(meterRegistry)
+                .increment(saved);
+    }
+
     private void incrementMetric(String status, String reason, String metricName) {
         Counter.builder(metricName)
                 .tag(TAG_KEY_STATUS, status)
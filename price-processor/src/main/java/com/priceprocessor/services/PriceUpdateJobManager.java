@@ -0,0 +1,109 @@
+package com.priceprocessor.services;
+
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.dtos.api.PriceUpdateJobResponse;
+import com.priceprocessor.exceptions.PriceUpdateJobNotFoundException;
+import com.priceprocessor.models.PriceUpdateJob;
+import com.priceprocessor.repositories.PriceUpdateJobRepository;
+import com.priceprocessor.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs price updates in the background so the cron request returns immediately.
+ * Jobs are stored in {@code price_update_jobs}, so any instance can report a job's status and a trigger that
+ * arrives while a job is running attaches to it, whichever instance runs it. Two triggers racing on different
+ * instances may still start two jobs; product leases keep such overlapping runs from refreshing a product twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceUpdateJobManager {
+
+    private static final Duration JOB_RETENTION = Duration.ofDays(7);
+
+    private final PriceUpdateService priceUpdateService;
+    private final ProductRepository productRepository;
+    private final PriceUpdateJobRepository priceUpdateJobRepository;
+    private final PriceUpdateProperties priceUpdateProperties;
+    private final ExecutorService priceUpdateJobExecutor;
+
+    public synchronized PriceUpdateJobResponse startOrAttach() {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<PriceUpdateJob> running = priceUpdateJobRepository.findFirstByStatusOrderByStartedAtDesc(PriceUpdateJob.Status.RUNNING)
+                .filter(job -> !failIfAbandoned(job, now));
+        if (running.isPresent()) {
+            log.info("Price update job {} is still running, attaching to it", running.get().getId());
+            return toResponse(running.get());
+        }
+
+        priceUpdateJobRepository.deleteFinishedBefore(now.minus(JOB_RETENTION));
+        PriceUpdateJob job = PriceUpdateJob.started(UUID.randomUUID().toString(), now);
+        priceUpdateJobRepository.save(job);
+        PriceUpdateJobResponse response = toResponse(job);
+
+        try {
+            priceUpdateJobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            job.fail(e.getMessage(), LocalDateTime.now());
+            priceUpdateJobRepository.save(job);
+            throw e;
+        }
+
+        log.info("Started price update job {}", job.getId());
+        return response;
+    }
+
+    public PriceUpdateJobResponse getJobStatus(String jobId) {
+        PriceUpdateJob job = priceUpdateJobRepository.findById(jobId)
+                .orElseThrow(() -> new PriceUpdateJobNotFoundException(jobId));
+        failIfAbandoned(job, LocalDateTime.now());
+        return toResponse(job);
+    }
+
+    private void run(PriceUpdateJob job) {
+        try {
+            job.complete(priceUpdateService.updateOutdatedPrices((pageProcessed, pageFailed) -> {
+                job.recordPage(pageProcessed, pageFailed, LocalDateTime.now());
+                priceUpdateJobRepository.save(job);
+            }), LocalDateTime.now());
+            priceUpdateJobRepository.save(job);
+            log.info("Price update job {} finished. Processed: {}, failed: {}, remaining: {}",
+                    job.getId(), job.getProcessed(), job.getFailed(), job.getRemaining());
+        } catch (Exception e) {
+            log.error("Price update job {} failed", job.getId(), e);
+            job.fail(e.getMessage(), LocalDateTime.now());
+            priceUpdateJobRepository.save(job);
+        }
+    }
+
+    /**
+     * Progress is saved after every page and a page never outlives its product leases, so a running job
+     * without progress for longer than the lease duration lost its instance and will never finish.
+     */
+    private boolean failIfAbandoned(PriceUpdateJob job, LocalDateTime now) {
+        if (!job.isAbandoned(now, priceUpdateProperties.getLeaseDuration())) {
+            return false;
+        }
+        log.warn("Price update job {} made no progress since {}, marking it as abandoned", job.getId(), job.getUpdatedAt());
+        job.fail("Abandoned: the instance running the job stopped before it finished", now);
+        priceUpdateJobRepository.save(job);
+        return true;
+    }
+
+    private PriceUpdateJobResponse toResponse(PriceUpdateJob job) {
+        // While the job runs the backlog shrinks page by page, so it is counted live
+        Long remaining = job.isRunning()
+                ? Long.valueOf(productRepository.countProductsToUpdate(LocalDateTime.now()))
+                : job.getRemaining();
+        return PriceUpdateJobResponse.mapToDto(job, remaining);
+    }
+}
@@ -1,22 +1,45 @@
 package com.priceprocessor.services;
 
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.config.PriceUpdateProperties.HistoryMode;
+import com.priceprocessor.dtos.api.BatchUpdateResult;
 import com.priceprocessor.dtos.crawler.PriceResponse;
-import com.priceprocessor.exceptions.NotificationServiceException;
 import com.priceprocessor.exceptions.PriceFetchException;
+import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
+import com.priceprocessor.exceptions.crawler.InvalidStoreUrlException;
+import com.priceprocessor.exceptions.crawler.RateLimitExceededException;
+import com.priceprocessor.exceptions.crawler.ScraperUnavailableException;
 import com.priceprocessor.models.ProductObservation;
+import com.priceprocessor.repositories.PriceHistoryRepository;
 import com.priceprocessor.repositories.ProductRepository;
 import com.priceprocessor.services.clients.PriceClient;
-import com.priceprocessor.services.queue.NotificationProducer;
+import com.priceprocessor.services.clients.ProductUrlCanonicalizer;
+import com.priceprocessor.services.clients.UrlPriceResult;
+import com.priceprocessor.services.queue.NotificationOutbox;
+import com.priceprocessor.services.queue.NotificationOutboxRelay;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,82 +47,428 @@ import java.util.Optional;
 public class PriceUpdateService {
 
     private final ProductRepository productRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
     private final PriceClient priceClient;
-    private final NotificationProducer notificationProducer;
+    private final NotificationOutbox notificationOutbox;
+    private final NotificationOutboxRelay notificationOutboxRelay;
     private final MetricsService metricsService;
+    private final PriceUpdateProperties priceUpdateProperties;
+    private final ExecutorService priceRefreshExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final CheckIntervalPolicy checkIntervalPolicy;
 
-    private static final int BATCH_SIZE = 5;
+    private static final String PHASE_CLAIM = "claim";
+    private static final String PHASE_SCRAPE = "scrape";
+    private static final String PHASE_APPLY = "apply";
 
-    @Transactional
-    public int updateOutdatedPrices() {
-        List<ProductObservation> productsToUpdate = productRepository.findProductsToUpdate(PageRequest.of(0, BATCH_SIZE));
+    public BatchUpdateResult updateOutdatedPrices() {
+        return updateOutdatedPrices(ProgressListener.NONE);
+    }
 
-        if (productsToUpdate.isEmpty()) {
-            log.info("No products to update");
+    /**
+     * Keeps claiming and refreshing pages of due products until nothing is due or the configured time budget
+     * is used up. The first page is always refreshed, so even a zero budget makes progress; a further page is only
+     * started when the remaining budget covers the duration of the previous one.
+     * The listener is told about every applied page, which lets callers expose partial results of a running job.
+     */
+    public BatchUpdateResult updateOutdatedPrices(ProgressListener progressListener) {
+        long budgetNanos = priceUpdateProperties.getTimeBudget().toNanos();
+        long startedAt = System.nanoTime();
+        LocalDateTime runStartedAt = LocalDateTime.now();
+
+        int processed = 0;
+        int failed = 0;
+        long lastPageNanos = 0;
+
+        do {
+            if (!priceClient.isAvailable()) {
+                log.warn("Scraper circuit is open, deferring the remaining due products to the next run");
+                break;
+            }
+            long pageStartedAt = System.nanoTime();
+            PageResult page = updatePage(() -> productRepository.findProductsToUpdate(
+                    runStartedAt, PageRequest.of(0, priceUpdateProperties.getBatchSize())));
+            lastPageNanos = System.nanoTime() - pageStartedAt;
+
+            if (page.claimed() == 0) {
+                break;
+            }
+            processed += page.processed();
+            failed += page.failed();
+            progressListener.onPageApplied(page.processed(), page.failed());
+
+            if (page.circuitOpened()) {
+                log.warn("Scraper circuit opened during the run, deferring the remaining due products to the next run");
+                break;
+            }
+        } while (System.nanoTime() - startedAt + lastPageNanos <= budgetNanos);
+
+        long remaining = productRepository.countProductsToUpdate(runStartedAt);
+        log.info("Price update run finished in {} ms. Processed: {}, failed: {}, remaining: {}",
+                Duration.ofNanos(System.nanoTime() - startedAt).toMillis(), processed, failed, remaining);
+
+        if (processed > 0) {
+            relayNotifications();
+        }
+
+        return new BatchUpdateResult(processed, failed, remaining);
+    }
+
+    /**
+     * Refreshes the given products if they are still due and not leased by another worker.
+     * Used by the in-process scheduler, which dispatches products one by one as they become due;
+     * notifications are left to the scheduled outbox relay since the instance keeps running.
+     */
+    public int refreshProducts(Collection<Long> productIds) {
+        if (!priceClient.isAvailable()) {
+            log.debug("Scraper circuit is open, deferring {} products", productIds.size());
             return 0;
         }
+        LocalDateTime dueAt = LocalDateTime.now();
+        return updatePage(() -> productRepository.findDueProductsByIds(productIds, dueAt)).processed();
+    }
+
+    /**
+     * Runs one page as three phases so that no JDBC connection is held while waiting on the scraper:
+     * claim due products (short read), scrape them (no transaction), apply the results (short write transaction).
+     * Observations of the same product are grouped by canonical URL so every distinct page is scraped once.
+     */
+    private PageResult updatePage(Supplier<List<ProductObservation>> dueProducts) {
+        long startedAt = System.nanoTime();
+        String leaseOwner = UUID.randomUUID().toString();
 
-        log.info("Starting batch update for {} products", productsToUpdate.size());
+        List<RefreshTarget> targets = timePhase(PHASE_CLAIM, () -> claimDueProducts(dueProducts, leaseOwner));
 
-        for (ProductObservation product : productsToUpdate) {
-            processProductUpdate(product);
+        if (targets.isEmpty()) {
+            log.info("No products to update");
+            return new PageResult(0, 0, 0, false);
         }
 
-        return productsToUpdate.size();
+        Map<String, List<Long>> productIdsByUrl = groupByCanonicalUrl(targets);
+        metricsService.incrementScraperRequestsSaved(targets.size() - productIdsByUrl.size());
+
+        log.info("Starting batch update for {} products ({} distinct URLs, concurrency: {})",
+                targets.size(), productIdsByUrl.size(), priceUpdateProperties.getConcurrency());
+
+        Map<String, ScrapeResult> results = timePhase(PHASE_SCRAPE, () -> scrapeAll(productIdsByUrl.keySet()));
+        ApplyResult applied = timePhase(PHASE_APPLY, () -> applyResults(productIdsByUrl, results, leaseOwner));
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+        metricsService.recordPriceUpdateBatch(targets.size(), elapsed);
+        log.info("Batch update finished: {} products in {} ms ({} products/s)",
+                targets.size(), elapsed.toMillis(), String.format("%.2f", throughput(targets.size(), elapsed)));
+
+        return new PageResult(targets.size(), applied.processed(), applied.failed(),
+                results.values().stream().anyMatch(ScrapeResult::circuitOpen));
     }
 
-    private void processProductUpdate(ProductObservation product) {
+    /**
+     * Locks a page of due, unleased products (skipping rows locked by other workers) and stamps them with a lease,
+     * so other instances and threads leave them alone until the results are applied or the lease expires.
+     */
+    private List<RefreshTarget> claimDueProducts(Supplier<List<ProductObservation>> dueProducts, String leaseOwner) {
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plus(priceUpdateProperties.getLeaseDuration());
+
+        return transactionTemplate.execute(status ->
+                dueProducts.get().stream()
+                        .map(product -> {
+                            product.acquireLease(leaseOwner, leaseExpiresAt);
+                            return new RefreshTarget(product.getId(), product.getProductUrl());
+                        })
+                        .toList());
+    }
+
+    private Map<String, List<Long>> groupByCanonicalUrl(List<RefreshTarget> targets) {
+        return targets.stream()
+                .collect(Collectors.groupingBy(
+                        target -> ProductUrlCanonicalizer.canonicalize(target.productUrl()),
+                        LinkedHashMap::new,
+                        Collectors.mapping(RefreshTarget::productId, Collectors.toList())
+                ));
+    }
+
+    private Map<String, ScrapeResult> scrapeAll(Collection<String> productUrls) {
+        if (priceClient.supportsBatch()) {
+            return scrapeInBatches(productUrls);
+        }
+        if (priceClient.supportsAsync()) {
+            return scrapeNonBlocking(productUrls);
+        }
+        // Scraper calls run in parallel on the bounded pool; entities are only touched inside the apply phase.
+        Map<String, CompletableFuture<ScrapeResult>> scrapes = new LinkedHashMap<>();
+        productUrls.forEach(url -> scrapes.put(url, scrapeAsync(url)));
+
+        Map<String, ScrapeResult> results = new LinkedHashMap<>();
+        scrapes.forEach((url, scrape) -> results.put(url, scrape.join()));
+        return results;
+    }
+
+    /**
+     * Splits the URLs into one batch per worker, so the page still uses the configured concurrency,
+     * and collects the per-URL results while the batches stream them back.
+     */
+    private Map<String, ScrapeResult> scrapeInBatches(Collection<String> productUrls) {
+        List<String> urls = List.copyOf(productUrls);
+        int batchSize = (urls.size() + priceUpdateProperties.getConcurrency() - 1) / priceUpdateProperties.getConcurrency();
+
+        Map<String, ScrapeResult> collected = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < urls.size(); from += batchSize) {
+            List<String> batch = urls.subList(from, Math.min(from + batchSize, urls.size()));
+            batches.add(CompletableFuture.runAsync(() -> scrapeBatch(batch, collected), priceRefreshExecutor));
+        }
+        CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+
+        Map<String, ScrapeResult> results = new LinkedHashMap<>();
+        urls.forEach(url -> results.put(url, collected.get(url)));
+        return results;
+    }
+
+    /**
+     * Starts every scrape through the non-blocking client, keeping at most {@code max-in-flight} of them running.
+     * Only the calling thread waits, for a free slot; the requests themselves hold no thread while in flight.
+     */
+    private Map<String, ScrapeResult> scrapeNonBlocking(Collection<String> productUrls) {
+        Semaphore slots = new Semaphore(priceUpdateProperties.getMaxInFlight());
+        Map<String, CompletableFuture<ScrapeResult>> scrapes = new LinkedHashMap<>();
+        for (String productUrl : productUrls) {
+            slots.acquireUninterruptibly();
+            CompletableFuture<ScrapeResult> scrape = priceClient.checkPriceByUrlAsync(productUrl)
+                    .handle((response, error) -> error == null
+                            ? ScrapeResult.success(response)
+                            : ScrapeResult.failure(PriceClient.causeOf(error)));
+            scrape.whenComplete((result, error) -> slots.release());
+            scrapes.put(productUrl, scrape);
+        }
+
+        Map<String, ScrapeResult> results = new LinkedHashMap<>();
+        scrapes.forEach((url, scrape) -> results.put(url, scrape.join()));
+        return results;
+    }
+
+    private void scrapeBatch(List<String> productUrls, Map<String, ScrapeResult> collected) {
+        log.debug("Checking prices for a batch of {} URLs", productUrls.size());
         try {
-            log.debug("Checking price for: {}", product.getProductName());
+            priceClient.checkPricesByUrls(productUrls, result -> collected.put(result.url(), ScrapeResult.of(result)));
+        } catch (RuntimeException e) {
+            productUrls.forEach(url -> collected.putIfAbsent(url, ScrapeResult.failure(e)));
+        }
+        productUrls.forEach(url -> collected.putIfAbsent(url,
+                ScrapeResult.failure(new PriceFetchException("No result returned for the URL"))));
+    }
+
+    private CompletableFuture<ScrapeResult> scrapeAsync(String productUrl) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                log.debug("Checking price for: {}", productUrl);
+                return ScrapeResult.success(priceClient.checkPriceByUrl(productUrl));
+            } catch (RuntimeException e) {
+                return ScrapeResult.failure(e);
+            }
+        }, priceRefreshExecutor);
+    }
+
+    private ApplyResult applyResults(Map<String, List<Long>> productIdsByUrl, Map<String, ScrapeResult> results, String leaseOwner) {
+        return transactionTemplate.execute(status -> {
+            List<Long> productIds = productIdsByUrl.values().stream().flatMap(List::stream).toList();
+            Map<Long, ProductObservation> products = productRepository.findAllById(productIds).stream()
+                    .collect(Collectors.toMap(ProductObservation::getId, Function.identity()));
 
-            Optional<PriceResponse> responseOpt = priceClient.checkPriceByUrl(product.getProductUrl());
+            List<ProductObservation> refreshed = new ArrayList<>();
+            List<ProductObservation> failed = new ArrayList<>();
+
+            productIdsByUrl.forEach((url, ids) -> {
+                List<ProductObservation> observers = new ArrayList<>();
+                for (Long id : ids) {
+                    ProductObservation product = products.get(id);
+                    if (product == null) {
+                        log.info("Product ID: {} was deleted during refresh, skipping", id);
+                        continue;
+                    }
+                    if (!product.isLeasedBy(leaseOwner)) {
+                        log.warn("Lease on product ID: {} expired and was taken over, skipping stale result", id);
+                        continue;
+                    }
+                    observers.add(product);
+                }
+
+                ScrapeResult result = results.get(url);
+                if (result.deferred()) {
+                    // Rejected by the open circuit or our own rate limit without reaching the store:
+                    // not the product's failure, so keep the schedule and only free the lease
+                    observers.forEach(ProductObservation::releaseLease);
+                    if (result.rateLimited()) {
+                        // Still due, but past the run's cut-off so the rest of this run does not claim it again
+                        LocalDateTime dueAgainAt = LocalDateTime.now();
+                        observers.forEach(product -> product.setNextCheckAt(dueAgainAt));
+                    }
+                    return;
+                }
+
+                for (ProductObservation product : observers) {
+                    product.releaseLease();
+                    // Checked before the update, while the observer still holds its previous price
+                    BigDecimal previousPrice = product.getCurrentPrice();
+                    Optional<BigDecimal> alertPrice = result.response().map(PriceResponse::price)
+                            .filter(product::isAlertTriggeredBy);
+                    if (processProductUpdate(product, result)) {
+                        refreshed.add(product);
+                        alertPrice.ifPresent(newPrice -> handlePriceDrop(product, previousPrice, newPrice));
+                    } else {
+                        failed.add(product);
+                    }
+                }
+            });
+
+            scheduleNextChecks(refreshed, failed);
+            return new ApplyResult(refreshed.size() + failed.size(), failed.size());
+        });
+    }
+
+    private void scheduleNextChecks(List<ProductObservation> refreshed, List<ProductObservation> failed) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, LocalDateTime> nextCheckTimes = checkIntervalPolicy.nextCheckTimes(
+                refreshed.stream().map(ProductObservation::getId).toList(), now);
+        refreshed.forEach(product -> product.setNextCheckAt(nextCheckTimes.get(product.getId())));
+
+        failed.stream()
+                .filter(product -> !product.isParked())
+                .forEach(product -> product.setNextCheckAt(checkIntervalPolicy.retryTime(product.getFailureCount(), now)));
+    }
+
+    private <T> T timePhase(String phase, Supplier<T> action) {
+        long startedAt = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            metricsService.recordPriceUpdatePhase(phase, Duration.ofNanos(System.nanoTime() - startedAt));
+        }
+    }
+
+    private boolean processProductUpdate(ProductObservation product, ScrapeResult result) {
+        try {
+            Optional<PriceResponse> responseOpt = result.getOrThrow();
 
             if (responseOpt.isPresent()) {
                 metricsService.incrementProductPriceUpdateSuccess();
                 updateProductData(product, responseOpt.get());
+                product.recordSuccessfulCheck();
+                return true;
             } else {
                 log.info("Product {} not found", product.getProductUrl());
                 throw new PriceFetchException("Product not found");
             }
 
+        } catch (ProductNotFoundInStoreException | InvalidStoreUrlException e) {
+            // Retrying will not help: the store no longer has the product or the URL is not a supported store
+            String errorClass = e.getClass().getSimpleName();
+            metricsService.incrementProductPriceUpdateFailure(errorClass);
+            metricsService.incrementProductParked(errorClass);
+            product.park(errorClass, LocalDateTime.now());
+            log.warn("Parking product ID: {} after permanent error: {}", product.getId(), e.getMessage());
         } catch (PriceFetchException e) {
-            metricsService.incrementLoginFailure(e.getClass().getSimpleName());
-            log.error("Failed to update product ID: {}. Reason: {}", product.getId(), e.getMessage());
+            metricsService.incrementProductPriceUpdateFailure(e.getClass().getSimpleName());
+            product.recordFailedCheck(e.getClass().getSimpleName());
+            log.error("Failed to update product ID: {} (attempt {}). Reason: {}", product.getId(), product.getFailureCount(), e.getMessage());
         } catch (Exception e) {
-            metricsService.incrementLoginFailure(e.getClass().getSimpleName());
-            log.error("Critical error updating product ID: {}", product.getId(), e);
+            metricsService.incrementProductPriceUpdateFailure(e.getClass().getSimpleName());
+            product.recordFailedCheck(e.getClass().getSimpleName());
+            log.error("Critical error updating product ID: {} (attempt {})", product.getId(), product.getFailureCount(), e);
         } finally {
             product.setLastCheckedAt(LocalDateTime.now());
             productRepository.save(product);
         }
+        return false;
     }
 
     private void updateProductData(ProductObservation product, PriceResponse response) {
         BigDecimal newPrice = response.price();
-        BigDecimal oldPrice = product.getCurrentPrice();
-
-        product.addPriceHistory(newPrice, LocalDateTime.now());
-        product.setProductName(response.foundProductName());
+        LocalDateTime checkedAt = LocalDateTime.now();
 
-        if (isPriceLower(newPrice, oldPrice)) {
-            handlePriceDrop(product, oldPrice, newPrice);
+        if (priceUpdateProperties.getHistoryMode() == HistoryMode.CHANGES_ONLY && product.hasCurrentPrice(newPrice)) {
+            product.confirmCurrentPrice(checkedAt);
+        } else {
+            priceHistoryRepository.save(product.recordPrice(newPrice, checkedAt));
         }
+        product.setProductName(response.foundProductName());
         log.info("Updated price for: {}", product.getProductName());
     }
 
-    private boolean isPriceLower(BigDecimal newPrice, BigDecimal oldPrice) {
-        return newPrice.compareTo(oldPrice) < 0;
+    private void handlePriceDrop(ProductObservation product, BigDecimal oldPrice, BigDecimal newPrice) {
+        // Written in the apply transaction, so the alert is stored if and only if the new price is committed
+        notificationOutbox.enqueue(
+                product.getUserEmail(),
+                "Price Drop Alert!",
+                "Price for " + product.getProductName() + " dropped from " + oldPrice + " to " + newPrice
+        );
     }
 
-    private void handlePriceDrop(ProductObservation product, BigDecimal oldPrice, BigDecimal newPrice) {
+    /**
+     * Publishes the alerts of this run right away instead of waiting for the next relay poll,
+     * since the instance may be scaled down soon after the cron request returns.
+     */
+    private void relayNotifications() {
         try {
-            notificationProducer.sendEmailNotification(
-                    product.getUserEmail(),
-                    "Price Drop Alert!",
-                    "Price for " + product.getProductName() + " dropped from " + oldPrice + " to " + newPrice
-            );
+            notificationOutboxRelay.relayPending();
         } catch (Exception e) {
-            log.error("Price updated, but notification failed for user: {}", product.getUserEmail(), new NotificationServiceException("Email sending failed", e));
+            log.error("Relaying notifications after the price update failed, the scheduled relay will retry", e);
+        }
+    }
+
+    private double throughput(int products, Duration elapsed) {
+        long millis = Math.max(elapsed.toMillis(), 1);
+        return products * 1000.0 / millis;
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        ProgressListener NONE = (processed, failed) -> {};
+
+        void onPageApplied(int processed, int failed);
+    }
+
+    /**
+     * @param claimed   products leased for the page
+     * @param processed products whose result was applied, i.e. claimed ones that were neither deferred nor skipped
+     */
+    private record PageResult(int claimed, int processed, int failed, boolean circuitOpened) {}
+
+    private record ApplyResult(int processed, int failed) {}
+
+    private record RefreshTarget(Long productId, String productUrl) {}
+
+    private record ScrapeResult(Optional<PriceResponse> response, RuntimeException error) {
+
+        static ScrapeResult success(Optional<PriceResponse> response) {
+            return new ScrapeResult(response, null);
+        }
+
+        static ScrapeResult failure(RuntimeException error) {
+            return new ScrapeResult(Optional.empty(), error);
+        }
+
+        static ScrapeResult of(UrlPriceResult result) {
+            return new ScrapeResult(result.response(), result.error());
+        }
+
+        boolean deferred() {
+            return circuitOpen() || rateLimited();
+        }
+
+        boolean rateLimited() {
+            return error instanceof RateLimitExceededException;
+        }
+
+        boolean circuitOpen() {
+            return error instanceof ScraperUnavailableException;
+        }
+
+        Optional<PriceResponse> getOrThrow() {
+            if (error != null) {
+                throw error;
+            }
+            return response;
         }
     }
-}
\ No newline at end of file
+}
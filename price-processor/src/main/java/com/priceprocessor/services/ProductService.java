@@ -6,15 +6,19 @@ import com.priceprocessor.exceptions.ProductNotFoundException;
 import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
 import com.priceprocessor.models.ProductObservation;
 import com.priceprocessor.repositories.ProductRepository;
+import com.priceprocessor.scheduler.ProductScheduleChangedEvent;
 import com.priceprocessor.services.clients.PriceClient;
+import com.priceprocessor.services.clients.ProductUrlCanonicalizer;
 import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +29,8 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final PriceClient priceClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CheckIntervalPolicy checkIntervalPolicy;
 
     private String getCurrentUserEmail() {
         return SecurityContextHolder.getContext().getAuthentication().getName();
@@ -38,9 +44,7 @@ public class ProductService {
         ProductObservation product = productRepository.findByIdAndUserEmail(id, currentUser)
                 .orElseThrow(() -> new ProductNotFoundException(id));
 
-        List<ProductDetailsResponse.PriceHistoryDto> historyDtos = product.getPriceHistory().stream()
-                .map(h -> new ProductDetailsResponse.PriceHistoryDto(h.getPrice(), h.getCheckedAt()))
-                .toList();
+        List<ProductDetailsResponse.PriceHistoryDto> historyDtos = toPriceSeries(product);
 
         return new ProductDetailsResponse(
                 product.getId(),
@@ -48,10 +52,31 @@ public class ProductService {
                 product.getProductUrl(),
                 product.getCurrentPrice(),
                 product.getUserEmail(),
-                historyDtos
+                historyDtos,
+                new PriceAlertRule(product.getTargetPrice(), product.getMinDropPercent())
         );
     }
 
+    /**
+     * History rows only mark price changes when change-only storage is enabled, so the series is closed
+     * with a point for the last time the current price was confirmed.
+     */
+    private List<ProductDetailsResponse.PriceHistoryDto> toPriceSeries(ProductObservation product) {
+        List<ProductDetailsResponse.PriceHistoryDto> series = new ArrayList<>();
+        product.getPriceHistory()
+                .forEach(h -> series.add(new ProductDetailsResponse.PriceHistoryDto(h.getPrice(), h.getCheckedAt())));
+
+        LocalDateTime confirmedAt = product.getPriceConfirmedAt();
+        if (confirmedAt == null) {
+            return series;
+        }
+
+        if (series.isEmpty() || series.get(series.size() - 1).checkedAt().isBefore(confirmedAt)) {
+            series.add(new ProductDetailsResponse.PriceHistoryDto(product.getCurrentPrice(), confirmedAt));
+        }
+        return series;
+    }
+
     @Transactional
     public ProductObservationResponse startObservingProductByName(ProductObservationByNameRequest request) {
         log.info("User {} requested observation for product name: {}", getCurrentUserEmail(), request.productName());
@@ -69,7 +94,7 @@ public class ProductService {
     public ProductObservationResponse startObservingProductByUrl(ProductObservationByUrlRequest request) {
         log.info("User {} requested observation for URL: {}", getCurrentUserEmail(), request.productUrl());
 
-        Optional<PriceResponse> response = priceClient.checkPriceByUrl(request.productUrl());
+        Optional<PriceResponse> response = priceClient.checkPriceByUrl(ProductUrlCanonicalizer.canonicalize(request.productUrl()));
 
         if (response.isEmpty()) {
             throw new ProductNotFoundInStoreException(request.productUrl());
@@ -80,17 +105,21 @@ public class ProductService {
 
     private ProductObservationResponse saveNewProductObservation(PriceResponse priceResponse) {
         String currentUser = getCurrentUserEmail();
+        LocalDateTime now = LocalDateTime.now();
 
+        // The price was scraped just now, so the first refresh is scheduled like any other successful check
         ProductObservation observation = ProductObservation.builder()
                 .productName(priceResponse.foundProductName())
-                .productUrl(priceResponse.ceneoUrl())
+                .productUrl(ProductUrlCanonicalizer.canonicalize(priceResponse.ceneoUrl()))
                 .userEmail(currentUser)
+                .nextCheckAt(checkIntervalPolicy.firstCheckTime(now))
                 .build();
 
-        observation.addPriceHistory(priceResponse.price(), LocalDateTime.now());
+        observation.addPriceHistory(priceResponse.price(), now);
 
         ProductObservation saved = productRepository.save(observation);
         log.info("Started observing product ID: {} for user: {}", saved.getId(), currentUser);
+        eventPublisher.publishEvent(ProductScheduleChangedEvent.scheduled(saved.getId(), saved.getNextCheckAt()));
 
         return ProductObservationResponse.mapToDto(saved);
     }
@@ -103,6 +132,20 @@ public class ProductService {
                 .toList();
     }
 
+    @Transactional
+    public PriceAlertRule updateAlertRule(Long id, PriceAlertRule rule) {
+        String currentUser = getCurrentUserEmail();
+
+        ProductObservation product = productRepository.findByIdAndUserEmail(id, currentUser)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+
+        product.setTargetPrice(rule.targetPrice());
+        product.setMinDropPercent(rule.minDropPercent());
+        log.info("Updated alert rule for product ID: {} (target: {}, min drop: {}%)", id, rule.targetPrice(), rule.minDropPercent());
+
+        return new PriceAlertRule(product.getTargetPrice(), product.getMinDropPercent());
+    }
+
     @Transactional
     public void deleteObservedProduct(Long id) {
         String currentUser = getCurrentUserEmail();
@@ -112,5 +155,6 @@ public class ProductService {
 
         productRepository.delete(product);
         log.info("Deleted product ID: {} for user: {}", id, currentUser);
+        eventPublisher.publishEvent(ProductScheduleChangedEvent.removed(id));
     }
 }
\ No newline at end of file
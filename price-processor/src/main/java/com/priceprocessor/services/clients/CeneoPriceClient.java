@@ -4,24 +4,47 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.priceprocessor.config.ScraperProperties;
 import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.dtos.crawler.ScraperBatchItem;
+import com.priceprocessor.dtos.crawler.ScraperBatchRequest;
 import com.priceprocessor.dtos.crawler.ScraperSearchRequest;
 import com.priceprocessor.dtos.crawler.ScraperUrlRequest;
-import com.priceprocessor.dtos.errors.ScraperErrorResponse;
 import com.priceprocessor.exceptions.PriceFetchException;
 import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
 import com.priceprocessor.exceptions.crawler.InvalidStoreUrlException;
-import com.priceprocessor.exceptions.crawler.ScraperException;
+import com.priceprocessor.exceptions.crawler.ScraperUnavailableException;
 import com.priceprocessor.services.MetricsService;
 import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -32,17 +55,357 @@ public class CeneoPriceClient implements PriceClient {
     private final ObjectMapper objectMapper;
     private final ScraperProperties scraperProperties;
     private final MetricsService metricsService;
+    private final StoreRateLimiter storeRateLimiter;
+    private final ScraperCircuitBreaker scraperCircuitBreaker;
+    private final SearchResultCache searchResultCache;
+    private final ScraperRequestCoalescer requestCoalescer;
+    private final ScraperErrorTranslator errorTranslator;
+    private final HttpClient scraperAsyncHttpClient;
+
+    // Cleared when the scraper turns out to predate the batch endpoint
+    private volatile boolean batchEndpointAvailable = true;
 
     @Override
     @Timed(value = "scraper.client.request", description = "Time taken to call python scraper", extraTags = {"type", "searchByName"})
     public Optional<PriceResponse> checkPriceByName(String productName) {
-        return postToScraper(scraperProperties.getSearchUrl(), new ScraperSearchRequest(productName));
+        return searchResultCache.get(productName, () -> requestCoalescer.execute(ScraperRequestCoalescer.searchKey(productName), () ->
+                callScraper(storeRateLimiter::acquireForSearch, scraperProperties.getSearchUrl(), new ScraperSearchRequest(productName))));
     }
 
     @Override
     @Timed(value = "scraper.client.request", description = "Time taken to call python scraper", extraTags = {"type", "directUrl"})
     public Optional<PriceResponse> checkPriceByUrl(String productUrl) {
-        return postToScraper(scraperProperties.getDirectUrl(), new ScraperUrlRequest(productUrl));
+        return requestCoalescer.execute(ScraperRequestCoalescer.urlKey(productUrl), () ->
+                callScraper(() -> storeRateLimiter.acquireForUrl(productUrl), scraperProperties.getDirectUrl(), new ScraperUrlRequest(productUrl)));
+    }
+
+    /**
+     * Same checks as {@link #checkPriceByUrl} without holding a thread while waiting: the rate limit permit is a timer,
+     * the request goes through the non-blocking client and the circuit breaker sees the outcome on completion.
+     */
+    @Override
+    public CompletableFuture<Optional<PriceResponse>> checkPriceByUrlAsync(String productUrl) {
+        ScraperRequestCoalescer.Flight flight = requestCoalescer.start(ScraperRequestCoalescer.urlKey(productUrl));
+        if (flight.isLeader()) {
+            callScraperAsync(productUrl).whenComplete((response, error) -> {
+                if (error != null) {
+                    flight.fail(PriceClient.causeOf(error));
+                } else {
+                    flight.succeed(response);
+                }
+            });
+        }
+        return flight.future();
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return true;
+    }
+
+    @Override
+    @Timed(value = "scraper.client.request", description = "Time taken to call python scraper", extraTags = {"type", "batchUrl"})
+    public void checkPricesByUrls(Collection<String> productUrls, Consumer<UrlPriceResult> resultConsumer) {
+        if (!supportsBatch()) {
+            PriceClient.super.checkPricesByUrls(productUrls, resultConsumer);
+            return;
+        }
+        List<String> urls = List.copyOf(productUrls);
+        for (int from = 0; from < urls.size(); from += scraperProperties.getMaxBatchSize()) {
+            List<String> chunk = urls.subList(from, Math.min(from + scraperProperties.getMaxBatchSize(), urls.size()));
+            try {
+                callScraperBatch(chunk, resultConsumer);
+            } catch (ScraperUnavailableException e) {
+                // The circuit opened: the remaining chunks would be rejected the same way
+                urls.subList(from, urls.size()).forEach(url -> resultConsumer.accept(UrlPriceResult.failure(url, e)));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsBatch() {
+        return batchEndpointAvailable && scraperProperties.hasBatchUrl();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return scraperCircuitBreaker.isCallPermitted();
+    }
+
+    /**
+     * Fails fast while the circuit is open, otherwise waits for a rate limit permit and reports the outcome
+     * of the call to the circuit breaker. Errors about the product itself mean the scraper works and count as success.
+     */
+    private Optional<PriceResponse> callScraper(Runnable acquireRatePermit, String url, Object body) {
+        scraperCircuitBreaker.acquirePermission();
+        try {
+            acquireRatePermit.run();
+        } catch (RuntimeException e) {
+            scraperCircuitBreaker.releasePermission();
+            throw e;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            Optional<PriceResponse> response = postToScraper(url, body);
+            recordCallOutcome(startedAt, null);
+            return response;
+        } catch (RuntimeException e) {
+            recordCallOutcome(startedAt, e);
+            throw e;
+        }
+    }
+
+    private void recordCallOutcome(long startedAt, Throwable error) {
+        long elapsedNanos = System.nanoTime() - startedAt;
+        if (error == null || error instanceof ProductNotFoundInStoreException || error instanceof InvalidStoreUrlException) {
+            scraperCircuitBreaker.onSuccess(elapsedNanos);
+        } else {
+            scraperCircuitBreaker.onFailure(elapsedNanos);
+        }
+    }
+
+    private CompletableFuture<Optional<PriceResponse>> callScraperAsync(String productUrl) {
+        try {
+            scraperCircuitBreaker.acquirePermission();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return storeRateLimiter.acquireForUrlAsync(productUrl)
+                .whenComplete((permit, error) -> {
+                    if (error != null) {
+                        scraperCircuitBreaker.releasePermission();
+                    }
+                })
+                .thenCompose(permit -> {
+                    long startedAt = System.nanoTime();
+                    return postToScraperAsync(scraperProperties.getDirectUrl(), new ScraperUrlRequest(productUrl))
+                            .whenComplete((response, error) -> recordCallOutcome(startedAt, error == null ? null : PriceClient.causeOf(error)));
+                });
+    }
+
+    private CompletableFuture<Optional<PriceResponse>> postToScraperAsync(String url, Object body) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(scraperProperties.getHttp().getReadTimeout())
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new PriceFetchException("Unexpected scraper error", e));
+        }
+
+        return scraperAsyncHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw translateTransportError(error);
+                    }
+                    return readResponse(url, response);
+                });
+    }
+
+    /**
+     * Interprets a response of the non-blocking client the way {@link #postToScraper} interprets RestTemplate's.
+     */
+    private Optional<PriceResponse> readResponse(String url, HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status >= 400 && status < 500) {
+            throw errorTranslator.translate(status, response.body());
+        }
+        if (status >= 300) {
+            log.error("Unknown error fetching price: scraper answered {}", status);
+            throw new PriceFetchException("Unexpected scraper error");
+        }
+        if (response.body() == null || response.body().isBlank()) {
+            log.warn("Scraper returned 200 OK but empty body for url: {}", url);
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(response.body(), PriceResponse.class));
+        } catch (JsonProcessingException e) {
+            log.error("Unknown error fetching price: {}", e.getMessage(), e);
+            throw new PriceFetchException("Unexpected scraper error", e);
+        }
+    }
+
+    private RuntimeException translateTransportError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IOException) {
+            log.error("Network error connecting to scraper: {}", cause.getMessage());
+            return new PriceFetchException("Scraper network error (timeout/unreachable)", cause);
+        }
+        log.error("Unknown error fetching price: {}", cause.getMessage(), cause);
+        return new PriceFetchException("Unexpected scraper error", cause);
+    }
+
+    /**
+     * Sends the URLs nobody else is already scraping and waits for the calls in flight for the rest,
+     * so a batch refresh racing a user request for the same page shares its result.
+     */
+    private void callScraperBatch(List<String> productUrls, Consumer<UrlPriceResult> resultConsumer) {
+        Map<String, ScraperRequestCoalescer.Flight> ownFlights = new LinkedHashMap<>();
+        Map<String, ScraperRequestCoalescer.Flight> sharedFlights = new LinkedHashMap<>();
+        for (String productUrl : productUrls) {
+            ScraperRequestCoalescer.Flight flight = requestCoalescer.start(ScraperRequestCoalescer.urlKey(productUrl));
+            (flight.isLeader() ? ownFlights : sharedFlights).put(productUrl, flight);
+        }
+
+        try {
+            sendBatch(List.copyOf(ownFlights.keySet()), result -> {
+                ScraperRequestCoalescer.Flight flight = ownFlights.get(result.url());
+                if (result.error() != null) {
+                    flight.fail(result.error());
+                } else {
+                    flight.succeed(result.response());
+                }
+                resultConsumer.accept(result);
+            });
+        } catch (Throwable e) {
+            ownFlights.values().forEach(flight -> flight.fail(e));
+            throw e;
+        }
+
+        sharedFlights.forEach((productUrl, flight) -> {
+            try {
+                resultConsumer.accept(UrlPriceResult.success(productUrl, flight.await()));
+            } catch (RuntimeException e) {
+                resultConsumer.accept(UrlPriceResult.failure(productUrl, e));
+            }
+        });
+    }
+
+    /**
+     * Sends the URLs paced by the store rate limit. The scraper fetches the URLs of one request concurrently,
+     * so URLs only go out together while their permits are due right away: a URL that has to wait closes the
+     * current wave, which is sent before waiting. A store therefore never gets more than its {@code burst}
+     * at once. Each wave is one circuit breaker call; URLs without a permit are reported as failed and left out.
+     */
+    private void sendBatch(List<String> productUrls, Consumer<UrlPriceResult> resultConsumer) {
+        if (productUrls.isEmpty()) {
+            return;
+        }
+        // Taken before any rate limit permit, so an open circuit rejects the chunk without spending them
+        scraperCircuitBreaker.acquirePermission();
+        Set<String> wave = new LinkedHashSet<>();
+        for (int i = 0; i < productUrls.size(); i++) {
+            String productUrl = productUrls.get(i);
+            CompletableFuture<Void> ratePermit = storeRateLimiter.acquireForUrlAsync(productUrl);
+            if (!ratePermit.isDone() && !wave.isEmpty()) {
+                sendWave(wave, resultConsumer);
+                wave = new LinkedHashSet<>();
+                try {
+                    scraperCircuitBreaker.acquirePermission();
+                } catch (ScraperUnavailableException e) {
+                    productUrls.subList(i, productUrls.size()).forEach(url -> resultConsumer.accept(UrlPriceResult.failure(url, e)));
+                    return;
+                }
+            }
+            try {
+                ratePermit.join();
+                wave.add(productUrl);
+            } catch (CompletionException e) {
+                resultConsumer.accept(UrlPriceResult.failure(productUrl, PriceClient.causeOf(e)));
+            }
+        }
+        if (wave.isEmpty()) {
+            scraperCircuitBreaker.releasePermission();
+            return;
+        }
+        sendWave(wave, resultConsumer);
+    }
+
+    /**
+     * Sends URLs holding a rate limit permit as one request, under a circuit breaker permission taken by the caller.
+     * Results are passed on line by line while the scraper streams them; URLs missing when the stream ends fail.
+     */
+    private void sendWave(Set<String> pending, Consumer<UrlPriceResult> resultConsumer) {
+        if (!batchEndpointAvailable) {
+            scraperCircuitBreaker.releasePermission();
+            new ArrayList<>(pending).forEach(productUrl -> resultConsumer.accept(checkSingleUrl(productUrl)));
+            return;
+        }
+
+        int batchSize = pending.size();
+        long startedAt = System.nanoTime();
+        try {
+            streamFromScraper(pending, resultConsumer);
+            // Timed per URL, so the slow call threshold keeps meaning the same as for single calls
+            scraperCircuitBreaker.onSuccess((System.nanoTime() - startedAt) / batchSize);
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+            log.warn("Scraper has no batch endpoint, falling back to single calls");
+            batchEndpointAvailable = false;
+            scraperCircuitBreaker.releasePermission();
+            // Rate limit permits were already taken for these URLs
+            new ArrayList<>(pending).forEach(productUrl -> resultConsumer.accept(checkSingleUrl(productUrl)));
+            return;
+        } catch (RuntimeException e) {
+            scraperCircuitBreaker.onFailure((System.nanoTime() - startedAt) / batchSize);
+            RuntimeException error = translateBatchError(e);
+            pending.forEach(productUrl -> resultConsumer.accept(UrlPriceResult.failure(productUrl, error)));
+            return;
+        }
+
+        pending.forEach(productUrl -> resultConsumer.accept(UrlPriceResult.failure(productUrl,
+                new PriceFetchException("Scraper batch ended without a result for the URL"))));
+    }
+
+    private UrlPriceResult checkSingleUrl(String productUrl) {
+        try {
+            return UrlPriceResult.success(productUrl,
+                    callScraper(() -> {}, scraperProperties.getDirectUrl(), new ScraperUrlRequest(productUrl)));
+        } catch (RuntimeException e) {
+            return UrlPriceResult.failure(productUrl, e);
+        }
+    }
+
+    /**
+     * Reads the NDJSON response line by line and removes every URL from {@code pending} once its result is passed on.
+     */
+    private void streamFromScraper(Set<String> pending, Consumer<UrlPriceResult> resultConsumer) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        HttpEntity<ScraperBatchRequest> request = new HttpEntity<>(new ScraperBatchRequest(List.copyOf(pending)), headers);
+
+        restTemplate.execute(URI.create(scraperProperties.getBatchUrl()), HttpMethod.POST, restTemplate.httpEntityCallback(request), response -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    ScraperBatchItem item = objectMapper.readValue(line, ScraperBatchItem.class);
+                    if (pending.remove(item.url())) {
+                        resultConsumer.accept(toUrlPriceResult(item));
+                    } else {
+                        log.warn("Scraper batch returned a result for an unrequested URL: {}", item.url());
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private UrlPriceResult toUrlPriceResult(ScraperBatchItem item) {
+        if (item.error() != null) {
+            return UrlPriceResult.failure(item.url(), errorTranslator.translate(item.error()));
+        }
+        return UrlPriceResult.success(item.url(), Optional.ofNullable(item.result()));
+    }
+
+    private RuntimeException translateBatchError(RuntimeException e) {
+        if (e instanceof HttpClientErrorException clientError) {
+            return errorTranslator.translate(clientError.getStatusCode().value(), clientError.getResponseBodyAsString());
+        }
+        if (e instanceof ResourceAccessException) {
+            log.error("Network error during scraper batch: {}", e.getMessage());
+            return new PriceFetchException("Scraper network error (timeout/unreachable)", e);
+        }
+        log.error("Unknown error during scraper batch: {}", e.getMessage(), e);
+        return new PriceFetchException("Unexpected scraper error", e);
     }
 
     private Optional<PriceResponse> postToScraper(String url, Object body) {
@@ -71,30 +434,6 @@ public class CeneoPriceClient implements PriceClient {
     }
 
     private void handleScraperError(HttpClientErrorException e) {
-        ScraperErrorResponse errorResponse;
-
-        try {
-            String responseBody = e.getResponseBodyAsString();
-            errorResponse = objectMapper.readValue(responseBody, ScraperErrorResponse.class);
-        } catch (JsonProcessingException jsonEx) {
-            log.error("Could not parse scraper exception body. Status: {}", e.getStatusCode(), jsonEx);
-            throw new ScraperException("Error during communication to scraper (Unknown format)");
-        }
-
-        log.warn("Scraper Error: {}", errorResponse.errorCode());
-
-        metricsService.incrementScraperError(errorResponse.errorCode().name());
-
-        switch (errorResponse.errorCode()) {
-            case PRODUCT_NOT_FOUND -> throw new ProductNotFoundInStoreException(errorResponse.message());
-
-            case INVALID_DOMAIN, MISSING_PARAM -> throw new InvalidStoreUrlException(errorResponse.message());
-
-            case PRICE_PARSING_ERROR -> throw new ScraperException("Invalid price found");
-
-            case CONNECTION_ERROR -> throw new ScraperException("Scraper is unreachable");
-
-            default -> throw new ScraperException("Unknown error in scraper: " + errorResponse.message());
-        }
+        throw errorTranslator.translate(e.getStatusCode().value(), e.getResponseBodyAsString());
     }
-}
\ No newline at end of file
+}
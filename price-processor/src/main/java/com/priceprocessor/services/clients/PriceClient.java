@@ -1,10 +1,76 @@
 package com.priceprocessor.services.clients;
 
 import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.exceptions.PriceFetchException;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public interface PriceClient {
     Optional<PriceResponse> checkPriceByName(String productName);
     Optional<PriceResponse> checkPriceByUrl(String productUrl);
+
+    /**
+     * Non-blocking variant of {@link #checkPriceByUrl}: the future completes with the same response or fails with
+     * the exception the blocking call would have thrown. The default runs the blocking call on the caller's thread;
+     * clients with a non-blocking transport override it together with {@link #supportsAsync()}.
+     */
+    default CompletableFuture<Optional<PriceResponse>> checkPriceByUrlAsync(String productUrl) {
+        try {
+            return CompletableFuture.completedFuture(checkPriceByUrl(productUrl));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Whether {@link #checkPriceByUrlAsync} returns without waiting for the scraper, so many calls can be in flight at once.
+     */
+    default boolean supportsAsync() {
+        return false;
+    }
+
+    /**
+     * Checks many product URLs and hands every result to the consumer as soon as it is known, exactly once per URL.
+     * Failures of single URLs are reported as results instead of being thrown. The default makes one call per URL;
+     * clients with a batch protocol override it together with {@link #supportsBatch()}.
+     */
+    default void checkPricesByUrls(Collection<String> productUrls, Consumer<UrlPriceResult> resultConsumer) {
+        for (String productUrl : productUrls) {
+            try {
+                resultConsumer.accept(UrlPriceResult.success(productUrl, checkPriceByUrl(productUrl)));
+            } catch (RuntimeException e) {
+                resultConsumer.accept(UrlPriceResult.failure(productUrl, e));
+            }
+        }
+    }
+
+    /**
+     * Whether {@link #checkPricesByUrls} sends many URLs per request, so callers should prefer it over parallel single calls.
+     */
+    default boolean supportsBatch() {
+        return false;
+    }
+
+    /**
+     * Whether calls are currently expected to reach the scraper. Callers use it to defer work instead of
+     * spending it on calls that would fail fast.
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * The exception a future of {@link #checkPriceByUrlAsync} failed with, without the {@link CompletionException}
+     * wrapper dependent stages add.
+     */
+    static RuntimeException causeOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RuntimeException runtimeException
+                ? runtimeException
+                : new PriceFetchException("Unexpected scraper error", cause);
+    }
 }
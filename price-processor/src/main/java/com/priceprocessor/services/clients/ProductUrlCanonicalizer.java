@@ -0,0 +1,97 @@
+package com.priceprocessor.services.clients;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Normalizes store URLs so that links pointing at the same product page compare equal:
+ * lower-cased scheme and host, no default port, fragment or trailing slash, tracking parameters removed
+ * and the remaining query parameters sorted.
+ */
+public final class ProductUrlCanonicalizer {
+
+    private static final String DEFAULT_SCHEME = "https://";
+    private static final List<String> TRACKING_PARAM_PREFIXES = List.of("utm_");
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "gclid", "gbraid", "wbraid", "fbclid", "msclkid", "yclid", "dclid",
+            "mc_cid", "mc_eid", "_ga", "_gl", "ref", "ref_src", "tag"
+    );
+
+    private ProductUrlCanonicalizer() {
+    }
+
+    public static String canonicalize(String url) {
+        if (url == null || url.isBlank()) {
+            return url;
+        }
+
+        String trimmed = url.trim();
+        if (!trimmed.contains("://")) {
+            trimmed = DEFAULT_SCHEME + trimmed;
+        }
+
+        try {
+            URI uri = new URI(trimmed);
+            if (uri.getHost() == null) {
+                return trimmed;
+            }
+
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            StringBuilder canonical = new StringBuilder(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                canonical.append(uri.getRawUserInfo()).append('@');
+            }
+            canonical.append(uri.getHost().toLowerCase(Locale.ROOT));
+            if (!isDefaultPort(scheme, uri.getPort())) {
+                canonical.append(':').append(uri.getPort());
+            }
+
+            return canonical
+                    .append(stripTrailingSlash(uri.getRawPath()))
+                    .append(canonicalQuery(uri.getRawQuery()))
+                    .toString();
+
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+    }
+
+    private static boolean isDefaultPort(String scheme, int port) {
+        return port == -1
+                || ("https".equals(scheme) && port == 443)
+                || ("http".equals(scheme) && port == 80);
+    }
+
+    private static String stripTrailingSlash(String path) {
+        if (path == null) {
+            return "";
+        }
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+
+        String query = Arrays.stream(rawQuery.split("&"))
+                .filter(param -> !param.isEmpty())
+                .filter(param -> !isTrackingParam(param))
+                .sorted()
+                .collect(Collectors.joining("&"));
+
+        return query.isEmpty() ? "" : "?" + query;
+    }
+
+    private static boolean isTrackingParam(String param) {
+        int separator = param.indexOf('=');
+        String name = (separator == -1 ? param : param.substring(0, separator)).toLowerCase(Locale.ROOT);
+
+        return TRACKING_PARAMS.contains(name) || TRACKING_PARAM_PREFIXES.stream().anyMatch(name::startsWith);
+    }
+}
@@ -0,0 +1,181 @@
+package com.priceprocessor.services.clients;
+
+import com.priceprocessor.config.ScraperProperties;
+import com.priceprocessor.exceptions.crawler.ScraperUnavailableException;
+import com.priceprocessor.services.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker around the scraper. While closed it tracks the outcome of the last
+ * {@code sliding-window-size} calls and opens once the failure rate or the slow call rate reaches its threshold.
+ * While open every call fails fast with {@link ScraperUnavailableException}; after {@code open-duration} a limited
+ * number of half-open probes decide whether it closes again or stays open for another period.
+ */
+@Component
+@Slf4j
+public class ScraperCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final ScraperProperties.CircuitBreaker config;
+    private final MetricsService metricsService;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int recordedCalls;
+    private int nextSlot;
+    private int failures;
+    private int slow;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    @Autowired
+    public ScraperCircuitBreaker(ScraperProperties scraperProperties, MetricsService metricsService) {
+        this(scraperProperties.getCircuitBreaker(), metricsService, System::nanoTime);
+    }
+
+    ScraperCircuitBreaker(ScraperProperties.CircuitBreaker config, MetricsService metricsService, LongSupplier nanoClock) {
+        this.config = config;
+        this.metricsService = metricsService;
+        this.nanoClock = nanoClock;
+        this.failedCalls = new boolean[config.getSlidingWindowSize()];
+        this.slowCalls = new boolean[config.getSlidingWindowSize()];
+        metricsService.registerScraperCircuitState(this, breaker -> breaker.getState().ordinal());
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a call would currently be let through, without taking a half-open probe slot.
+     */
+    public boolean isCallPermitted() {
+        return state != State.OPEN || openPeriodElapsed();
+    }
+
+    /**
+     * Must be followed by exactly one of {@link #onSuccess}, {@link #onFailure} or {@link #releasePermission}.
+     */
+    public void acquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && openPeriodElapsed()) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.OPEN || (state == State.HALF_OPEN && halfOpenInFlight + halfOpenSucceeded >= config.getHalfOpenCalls())) {
+                metricsService.incrementScraperCircuitRejected();
+                throw new ScraperUnavailableException("Scraper circuit is open");
+            }
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a permission whose call never reached the scraper.
+     */
+    public void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+                halfOpenInFlight--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long durationNanos) {
+        record(false, durationNanos >= config.getSlowCallThreshold().toNanos());
+    }
+
+    public void onFailure(long durationNanos) {
+        record(true, durationNanos >= config.getSlowCallThreshold().toNanos());
+    }
+
+    private void record(boolean failed, boolean slowCall) {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> {
+                    addToWindow(failed, slowCall);
+                    if (recordedCalls >= config.getMinimumCalls() && thresholdReached()) {
+                        log.warn("Scraper circuit opening: {}/{} calls failed, {} slow", failures, recordedCalls, slow);
+                        transitionTo(State.OPEN);
+                    }
+                }
+                case HALF_OPEN -> {
+                    halfOpenInFlight = Math.max(halfOpenInFlight - 1, 0);
+                    if (failed || slowCall) {
+                        transitionTo(State.OPEN);
+                    } else if (++halfOpenSucceeded >= config.getHalfOpenCalls()) {
+                        transitionTo(State.CLOSED);
+                    }
+                }
+                // Calls that started before the circuit opened do not change anything
+                case OPEN -> { }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void addToWindow(boolean failed, boolean slowCall) {
+        if (recordedCalls == failedCalls.length) {
+            failures -= failedCalls[nextSlot] ? 1 : 0;
+            slow -= slowCalls[nextSlot] ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+        failedCalls[nextSlot] = failed;
+        slowCalls[nextSlot] = slowCall;
+        failures += failed ? 1 : 0;
+        slow += slowCall ? 1 : 0;
+        nextSlot = (nextSlot + 1) % failedCalls.length;
+    }
+
+    private boolean thresholdReached() {
+        return failures * 100.0 / recordedCalls >= config.getFailureRateThreshold()
+                || slow * 100.0 / recordedCalls >= config.getSlowCallRateThreshold();
+    }
+
+    private boolean openPeriodElapsed() {
+        return nanoClock.getAsLong() - openedAt >= config.getOpenDuration().toNanos();
+    }
+
+    private void transitionTo(State target) {
+        State previous = state;
+        if (target == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        }
+        state = target;
+        halfOpenInFlight = 0;
+        halfOpenSucceeded = 0;
+        if (target == State.CLOSED) {
+            recordedCalls = 0;
+            nextSlot = 0;
+            failures = 0;
+            slow = 0;
+        }
+        metricsService.recordScraperCircuitTransition(previous.name(), target.name());
+        log.info("Scraper circuit {} -> {}", previous, target);
+    }
+}
@@ -0,0 +1,59 @@
+package com.priceprocessor.services.clients;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.priceprocessor.dtos.errors.ScraperErrorResponse;
+import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
+import com.priceprocessor.exceptions.crawler.InvalidStoreUrlException;
+import com.priceprocessor.exceptions.crawler.ScraperException;
+import com.priceprocessor.services.MetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps error responses of the scraper to the exceptions callers handle, shared by the blocking, batch and
+ * non-blocking transports so every path reports the same error for the same scraper answer.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ScraperErrorTranslator {
+
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+
+    /**
+     * Translates a 4xx response of the scraper from its status and raw body.
+     */
+    public RuntimeException translate(int status, String responseBody) {
+        ScraperErrorResponse errorResponse;
+
+        try {
+            errorResponse = objectMapper.readValue(responseBody, ScraperErrorResponse.class);
+        } catch (JsonProcessingException jsonEx) {
+            log.error("Could not parse scraper exception body. Status: {}", status, jsonEx);
+            return new ScraperException("Error during communication to scraper (Unknown format)");
+        }
+
+        return translate(errorResponse);
+    }
+
+    public RuntimeException translate(ScraperErrorResponse errorResponse) {
+        log.warn("Scraper Error: {}", errorResponse.errorCode());
+
+        metricsService.incrementScraperError(errorResponse.errorCode().name());
+
+        return switch (errorResponse.errorCode()) {
+            case PRODUCT_NOT_FOUND -> new ProductNotFoundInStoreException(errorResponse.message());
+
+            case INVALID_DOMAIN, MISSING_PARAM -> new InvalidStoreUrlException(errorResponse.message());
+
+            case PRICE_PARSING_ERROR -> new ScraperException("Invalid price found");
+
+            case CONNECTION_ERROR -> new ScraperException("Scraper is unreachable");
+
+            default -> new ScraperException("Unknown error in scraper: " + errorResponse.message());
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package com.priceprocessor.services.clients;
+
+import com.priceprocessor.config.ScraperProperties;
+import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.exceptions.PriceFetchException;
+import com.priceprocessor.services.MetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer in front of the scraper: while a call for a key (canonical URL or normalized query)
+ * is in flight, further callers with the same key wait for its outcome instead of calling the scraper again.
+ * The outcome, value or exception, is shared with every waiter, and the key is released as soon as the call ends.
+ * Waiters give up after the longest a single scraper call can take (rate limit wait, connect and read timeout).
+ */
+@Component
+public class ScraperRequestCoalescer {
+
+    private final MetricsService metricsService;
+    private final Duration maxAwait;
+
+    private final Map<String, CompletableFuture<Optional<PriceResponse>>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ScraperRequestCoalescer(ScraperProperties scraperProperties, MetricsService metricsService) {
+        this(metricsService, scraperProperties.getRateLimit().getMaxWait()
+                .plus(scraperProperties.getHttp().getConnectTimeout())
+                .plus(scraperProperties.getHttp().getReadTimeout()));
+    }
+
+    ScraperRequestCoalescer(MetricsService metricsService, Duration maxAwait) {
+        this.metricsService = metricsService;
+        this.maxAwait = maxAwait;
+    }
+
+    public static String urlKey(String productUrl) {
+        return "url:" + ProductUrlCanonicalizer.canonicalize(productUrl);
+    }
+
+    public static String searchKey(String productName) {
+        return "search:" + SearchResultCache.normalize(productName);
+    }
+
+    public Optional<PriceResponse> execute(String key, Supplier<Optional<PriceResponse>> call) {
+        Flight flight = start(key);
+        if (!flight.isLeader()) {
+            return flight.await();
+        }
+        try {
+            Optional<PriceResponse> response = call.get();
+            flight.succeed(response);
+            return response;
+        } catch (Throwable e) {
+            // Errors too, otherwise the key would stay in flight and block every later caller
+            flight.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Joins the call in flight for the key, or registers a new one which the caller then has to make and finish.
+     */
+    public Flight start(String key) {
+        CompletableFuture<Optional<PriceResponse>> own = new CompletableFuture<>();
+        CompletableFuture<Optional<PriceResponse>> existing = inFlight.putIfAbsent(key, own);
+        metricsService.incrementScraperRequestCoalescing(existing != null);
+        return existing != null ? new Flight(key, existing, false) : new Flight(key, own, true);
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public final class Flight {
+
+        private final String key;
+        private final CompletableFuture<Optional<PriceResponse>> future;
+        private final boolean leader;
+
+        private Flight(String key, CompletableFuture<Optional<PriceResponse>> future, boolean leader) {
+            this.key = key;
+            this.future = future;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        public void succeed(Optional<PriceResponse> response) {
+            future.complete(response);
+            inFlight.remove(key, future);
+        }
+
+        /**
+         * Fails the call for every waiter; does nothing once the call has finished.
+         */
+        public void fail(Throwable error) {
+            future.completeExceptionally(error);
+            inFlight.remove(key, future);
+        }
+
+        /**
+         * The shared call as a future of its own, so callers cannot complete it for the others.
+         * A follower's future fails with {@link PriceFetchException} if the call does not finish in time,
+         * like {@link #await()}; the leader's completes with its own call.
+         */
+        public CompletableFuture<Optional<PriceResponse>> future() {
+            if (leader) {
+                return future.copy();
+            }
+            return future.copy()
+                    .orTimeout(maxAwait.toNanos(), TimeUnit.NANOSECONDS)
+                    .exceptionallyCompose(error -> CompletableFuture.failedFuture(error instanceof TimeoutException
+                            ? new PriceFetchException("Timed out waiting for the scraper call in flight for " + key)
+                            : error));
+        }
+
+        /**
+         * Waits for the shared call and returns its response or rethrows its exception.
+         * Fails with {@link PriceFetchException} if the call does not finish in time.
+         */
+        public Optional<PriceResponse> await() {
+            try {
+                return future.get(maxAwait.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new PriceFetchException("Unexpected scraper error", e.getCause());
+            } catch (TimeoutException e) {
+                throw new PriceFetchException("Timed out waiting for the scraper call in flight for " + key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PriceFetchException("Interrupted while waiting for the scraper call in flight");
+            }
+        }
+    }
+}
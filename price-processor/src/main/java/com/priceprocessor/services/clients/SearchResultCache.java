@@ -0,0 +1,115 @@
+package com.priceprocessor.services.clients;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.priceprocessor.config.ScraperProperties;
+import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
+import com.priceprocessor.services.MetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of scraper search results keyed by the normalized query, so users adding the same product
+ * within minutes share one search. Found products are kept for {@code ttl}, searches the store had no product
+ * for are kept for the shorter {@code not-found-ttl} and answered with a new {@link ProductNotFoundInStoreException}
+ * on every hit.
+ * Other errors are never cached.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Cache<String, CachedSearch> cache;
+
+    @Autowired
+    public SearchResultCache(ScraperProperties scraperProperties, MetricsService metricsService) {
+        this(scraperProperties.getSearchCache(), metricsService, System::nanoTime);
+    }
+
+    SearchResultCache(ScraperProperties.SearchCache config, MetricsService metricsService, LongSupplier nanoClock) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new SearchExpiry(config.getTtl().toNanos(), config.getNotFoundTtl().toNanos()))
+                .ticker(nanoClock::getAsLong)
+                .recordStats()
+                .build();
+        metricsService.registerScraperSearchCache(cache);
+    }
+
+    /**
+     * Answers from the cache or runs the search and caches its outcome. Concurrent misses for the same query
+     * each run the search.
+     */
+    public Optional<PriceResponse> get(String productName, Supplier<Optional<PriceResponse>> search) {
+        String query = normalize(productName);
+        CachedSearch cached = cache.getIfPresent(query);
+        if (cached != null) {
+            return cached.toResult(productName);
+        }
+
+        try {
+            Optional<PriceResponse> response = search.get();
+            // An empty body is not a definite answer from the store, so it is not kept
+            response.ifPresent(found -> cache.put(query, CachedSearch.found(found)));
+            return response;
+        } catch (ProductNotFoundInStoreException e) {
+            cache.put(query, CachedSearch.NOT_FOUND);
+            throw e;
+        }
+    }
+
+    static String normalize(String productName) {
+        String normalized = Normalizer.normalize(productName, Normalizer.Form.NFKC).strip().toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(normalized).replaceAll(" ");
+    }
+
+    // The not-found answer is a marker; sharing one exception instance would mix up stack traces and suppressed
+    // exceptions between callers
+    private record CachedSearch(PriceResponse response) {
+
+        static final CachedSearch NOT_FOUND = new CachedSearch(null);
+
+        static CachedSearch found(PriceResponse response) {
+            return new CachedSearch(response);
+        }
+
+        boolean isNotFound() {
+            return response == null;
+        }
+
+        Optional<PriceResponse> toResult(String productName) {
+            if (isNotFound()) {
+                throw new ProductNotFoundInStoreException(productName);
+            }
+            return Optional.of(response);
+        }
+    }
+
+    private record SearchExpiry(long ttlNanos, long notFoundTtlNanos) implements Expiry<String, CachedSearch> {
+
+        @Override
+        public long expireAfterCreate(String query, CachedSearch search, long currentTime) {
+            return search.isNotFound() ? notFoundTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String query, CachedSearch search, long currentTime, long currentDuration) {
+            return expireAfterCreate(query, search, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String query, CachedSearch search, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
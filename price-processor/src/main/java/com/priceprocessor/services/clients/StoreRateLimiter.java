@@ -0,0 +1,125 @@
+package com.priceprocessor.services.clients;
+
+import com.priceprocessor.config.ScraperProperties;
+import com.priceprocessor.exceptions.PriceFetchException;
+import com.priceprocessor.exceptions.crawler.RateLimitExceededException;
+import com.priceprocessor.services.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits scraper calls per target store domain, so parallel refreshes do not get the crawler throttled or blocked.
+ * Each domain has its own {@link TokenBucket}; waiting parks the calling thread without holding any lock
+ * and callers that would wait longer than {@code scraper.api.rate-limit.max-wait} are rejected with
+ * {@link RateLimitExceededException} instead.
+ */
+@Component
+@Slf4j
+public class StoreRateLimiter {
+
+    // Searching by name always goes through Ceneo
+    static final String SEARCH_DOMAIN = "ceneo.pl";
+    private static final String UNKNOWN_DOMAIN = "unknown";
+
+    private final ScraperProperties.RateLimit rateLimit;
+    private final MetricsService metricsService;
+    private final LongSupplier nanoClock;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StoreRateLimiter(ScraperProperties scraperProperties, MetricsService metricsService) {
+        this(scraperProperties.getRateLimit(), metricsService, System::nanoTime);
+    }
+
+    StoreRateLimiter(ScraperProperties.RateLimit rateLimit, MetricsService metricsService, LongSupplier nanoClock) {
+        this.rateLimit = rateLimit;
+        this.metricsService = metricsService;
+        this.nanoClock = nanoClock;
+    }
+
+    public void acquireForUrl(String productUrl) {
+        acquire(domainOf(productUrl));
+    }
+
+    public void acquireForSearch() {
+        acquire(SEARCH_DOMAIN);
+    }
+
+    /**
+     * Non-blocking variant of {@link #acquireForUrl}: the future completes once the permit is due instead of
+     * parking the calling thread, or fails right away when the wait would exceed the maximum.
+     */
+    public CompletableFuture<Void> acquireForUrlAsync(String productUrl) {
+        long waitNanos;
+        try {
+            waitNanos = reserve(domainOf(productUrl));
+        } catch (RateLimitExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (waitNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
+
+    void acquire(String domain) {
+        long waitNanos = reserve(domain);
+        if (waitNanos > 0) {
+            park(waitNanos);
+        }
+    }
+
+    private long reserve(String domain) {
+        TokenBucket bucket = buckets.computeIfAbsent(domain, this::createBucket);
+        long waitNanos = bucket.reserve(nanoClock.getAsLong(), rateLimit.getMaxWait().toNanos());
+
+        if (waitNanos < 0) {
+            metricsService.incrementScraperRateLimitRejected(domain);
+            log.warn("Rate limit for {} exhausted, rejecting scraper call", domain);
+            throw new RateLimitExceededException("Rate limit for " + domain + " exceeded");
+        }
+        metricsService.recordScraperRateLimitWait(domain, Duration.ofNanos(waitNanos));
+        return waitNanos;
+    }
+
+    private TokenBucket createBucket(String domain) {
+        ScraperProperties.Limit limit = rateLimit.getDomains().getOrDefault(domain, rateLimit.getDefaultLimit());
+        return new TokenBucket(limit.getPermitsPerSecond(), limit.getBurst(), nanoClock.getAsLong());
+    }
+
+    private void park(long waitNanos) {
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining = waitNanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new PriceFetchException("Interrupted while waiting for the scraper rate limit");
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    static String domainOf(String url) {
+        try {
+            String host = URI.create(url.trim()).getHost();
+            if (host == null) {
+                return UNKNOWN_DOMAIN;
+            }
+            host = host.toLowerCase(Locale.ROOT);
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN_DOMAIN;
+        }
+    }
+}
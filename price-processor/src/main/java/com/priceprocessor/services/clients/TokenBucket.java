@@ -0,0 +1,51 @@
+package com.priceprocessor.services.clients;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket that hands out reservations instead of blocking: a caller that finds the bucket empty takes
+ * a token on credit and is told how long to wait for it. The lock only guards the arithmetic, so waiting
+ * callers never hold it and later callers queue up behind the tokens already reserved.
+ */
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double permitsPerNano;
+    private final double burst;
+
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double permitsPerSecond, int burst, long now) {
+        this.permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes one token and returns how many nanoseconds the caller has to wait before using it,
+     * or {@code -1} without taking anything when that wait would exceed {@code maxWaitNanos}.
+     */
+    long reserve(long now, long maxWaitNanos) {
+        lock.lock();
+        try {
+            if (now > refilledAt) {
+                tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+                refilledAt = now;
+            }
+
+            long waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+            tokens -= 1;
+            return waitNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.priceprocessor.services.clients;
+
+import com.priceprocessor.dtos.crawler.PriceResponse;
+
+import java.util.Optional;
+
+/**
+ * Outcome of checking one product URL within a batch: the response, or the error a single call would have thrown.
+ */
+public record UrlPriceResult(String url, Optional<PriceResponse> response, RuntimeException error) {
+
+    public static UrlPriceResult success(String url, Optional<PriceResponse> response) {
+        return new UrlPriceResult(url, response, null);
+    }
+
+    public static UrlPriceResult failure(String url, RuntimeException error) {
+        return new UrlPriceResult(url, Optional.empty(), error);
+    }
+}
@@ -1,8 +1,10 @@
 package com.priceprocessor.services.queue;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import com.google.cloud.spring.pubsub.support.PublisherFactory;
+import com.priceprocessor.dtos.queue.EmailNotification;
 import com.priceprocessor.exceptions.NotificationServiceException;
 import com.priceprocessor.services.MetricsService;
 import lombok.RequiredArgsConstructor;
@@ -11,7 +13,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -21,35 +23,44 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class GooglePubSubProducer implements NotificationProducer {
 
+    private static final String BROKER = "pubsub";
+
     private final PubSubTemplate pubSubTemplate;
-    private final ObjectMapper objectMapper;
+    private final PublisherFactory publisherFactory;
+    private final NotificationSerializer notificationSerializer;
     private final MetricsService metricsService;
 
     @Value("${gcp.pubsub.topic-name}")
     private String topicName;
 
+    // Must match spring.cloud.gcp.pubsub.publisher.enable-message-ordering, the publisher rejects ordering keys otherwise
+    @Value("${spring.cloud.gcp.pubsub.publisher.enable-message-ordering:false}")
+    private boolean orderingEnabled;
+
     @Override
-    public void sendEmailNotification(String to, String subject, String body) {
+    public CompletableFuture<Void> sendEmailNotification(EmailNotification notification) {
+        String to = notification.to();
         try {
-            Map<String, String> payload = new HashMap<>();
-            payload.put("to", to);
-            payload.put("subject", subject);
-            payload.put("body", body);
-
-            String jsonString = objectMapper.writeValueAsString(payload);
+            String jsonString = notificationSerializer.serialize(notification);
 
-            CompletableFuture<String> future = pubSubTemplate.publish(topicName, jsonString);
+            long startedAt = System.nanoTime();
+            CompletableFuture<String> future = orderingEnabled
+                    ? pubSubTemplate.publish(topicName, jsonString, Map.of(GcpPubSubHeaders.ORDERING_KEY, to))
+                    : pubSubTemplate.publish(topicName, jsonString);
 
-            future.whenComplete((msgId, ex) -> {
+            CompletableFuture<Void> acknowledged = future.whenComplete((msgId, ex) -> {
+                metricsService.recordNotificationPublishLatency(BROKER, Duration.ofNanos(System.nanoTime() - startedAt));
                 if (ex != null) {
                     log.error("Async error publishing to Pub/Sub for user: {}", to, ex);
+                    resumeOrderingKey(to);
                 } else {
                     log.info("Message published to Pub/Sub with ID: {}", msgId);
                 }
-            });
+            }).thenAccept(result -> {});
 
             log.info("Email notification queued for: {}", to);
             metricsService.incrementMailQueueSuccess();
+            return acknowledged;
         } catch (JsonProcessingException e) {
             metricsService.incrementMailQueueFailure(e.getClass().getSimpleName());
             throw new NotificationServiceException("Failed to serialize notification payload for " + to, e);
@@ -58,4 +69,19 @@ public class GooglePubSubProducer implements NotificationProducer {
             throw new NotificationServiceException("Failed to publish message to Pub/Sub topic " + topicName, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A failed publish pauses its ordering key; later messages for that user fail until the key is resumed.
+     * The outbox relay retries the failed message, so it is safe to resume right away.
+     */
+    private void resumeOrderingKey(String to) {
+        if (!orderingEnabled) {
+            return;
+        }
+        try {
+            publisherFactory.createPublisher(topicName).resumePublish(to);
+        } catch (Exception e) {
+            log.warn("Could not resume ordering key for user: {}", to, e);
+        }
+    }
+}
@@ -1,62 +1,97 @@
 package com.priceprocessor.services.queue;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.priceprocessor.dtos.queue.EmailNotification;
 import com.priceprocessor.exceptions.NotificationServiceException;
 import com.priceprocessor.services.MetricsService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Profile("dev")
-@RequiredArgsConstructor
 @Slf4j
 public class KafkaNotificationProducer implements NotificationProducer {
 
+    private static final String BROKER = "kafka";
+    private static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+
     private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final NotificationSerializer notificationSerializer;
     private final MetricsService metricsService;
+    // Bounds unacknowledged sends, so a surge of alerts blocks the caller instead of piling up in the producer buffer
+    private final Semaphore inFlightSends;
 
     @Value("${notification.topic.name:allegro-price-notifications}")
     private String topicName;
 
-    @Override
-    public void sendEmailNotification(String to, String subject, String body) {
-        try {
-            Map<String, String> payload = new HashMap<>();
-            payload.put("to", to);
-            payload.put("subject", subject);
-            payload.put("body", body);
-
-            String jsonString = objectMapper.writeValueAsString(payload);
-
-            CompletableFuture<?> future = kafkaTemplate.send(topicName, jsonString);
+    @Value("${notification.kafka.in-flight-wait:5s}")
+    private Duration inFlightWait = Duration.ofSeconds(5);
 
-            future.whenComplete((result, ex) -> {
-                if (ex != null) {
-                    log.error("Async error sending to Kafka for user: {}", to, ex);
-                } else {
-                    log.debug("Message sent to Kafka topic: {}", topicName);
-                }
-            });
-
-            log.info("Email request queued in Kafka for: {}", to);
-            metricsService.incrementMailQueueSuccess();
+    public KafkaNotificationProducer(KafkaTemplate<String, String> kafkaTemplate,
+                                     NotificationSerializer notificationSerializer,
+                                     MetricsService metricsService,
+                                     @Value("${notification.kafka.max-in-flight:" + DEFAULT_MAX_IN_FLIGHT + "}") int maxInFlight) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.notificationSerializer = notificationSerializer;
+        this.metricsService = metricsService;
+        this.inFlightSends = new Semaphore(maxInFlight);
+    }
 
+    @Override
+    public CompletableFuture<Void> sendEmailNotification(EmailNotification notification) {
+        String to = notification.to();
+        String jsonString;
+        try {
+            jsonString = notificationSerializer.serialize(notification);
         } catch (JsonProcessingException e) {
             metricsService.incrementMailQueueFailure(e.getClass().getSimpleName());
             throw new NotificationServiceException("Failed to serialize notification payload for " + to, e);
+        }
+
+        acquireInFlightPermit(to);
+        long startedAt = System.nanoTime();
+        CompletableFuture<?> future;
+        try {
+            // Keyed by recipient: all alerts of one user land on the same partition and keep their order
+            future = kafkaTemplate.send(topicName, to, jsonString);
         } catch (Exception e) {
+            inFlightSends.release();
             metricsService.incrementMailQueueFailure(e.getClass().getSimpleName());
             throw new NotificationServiceException("Failed to send message to Kafka topic " + topicName, e);
         }
+
+        CompletableFuture<Void> acknowledged = future.whenComplete((result, ex) -> {
+            inFlightSends.release();
+            metricsService.recordNotificationPublishLatency(BROKER, Duration.ofNanos(System.nanoTime() - startedAt));
+            if (ex != null) {
+                log.error("Async error sending to Kafka for user: {}", to, ex);
+            } else {
+                log.debug("Message sent to Kafka topic: {}", topicName);
+            }
+        }).thenAccept(result -> {});
+
+        log.info("Email request queued in Kafka for: {}", to);
+        metricsService.incrementMailQueueSuccess();
+        return acknowledged;
+    }
+
+    private void acquireInFlightPermit(String to) {
+        try {
+            if (!inFlightSends.tryAcquire(inFlightWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                metricsService.incrementMailQueueFailure("InFlightLimit");
+                throw new NotificationServiceException("Too many unacknowledged Kafka sends, rejecting notification for " + to, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NotificationServiceException("Interrupted while waiting to send notification for " + to, e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.priceprocessor.services.queue;
+
+import com.priceprocessor.config.NotificationOutboxProperties;
+import com.priceprocessor.models.OutboxNotification;
+import com.priceprocessor.repositories.OutboxNotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Entry point for notifications that must only go out if the surrounding transaction commits.
+ * Rows are picked up and published by {@link NotificationOutboxRelay}.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationOutbox {
+
+    private final OutboxNotificationRepository outboxNotificationRepository;
+    private final NotificationOutboxProperties outboxProperties;
+
+    public OutboxNotification enqueue(String to, String subject, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxNotification notification = OutboxNotification.pending(to, subject, body, now);
+        notification.setNextAttemptAt(deliverAt(now));
+        return outboxNotificationRepository.save(notification);
+    }
+
+    /**
+     * With digests enabled, every notification written within the same tumbling window gets the window end
+     * as its first attempt time, so the relay claims a user's drops from that window together.
+     */
+    LocalDateTime deliverAt(LocalDateTime now) {
+        NotificationOutboxProperties.Digest digest = outboxProperties.getDigest();
+        Duration window = digest.getWindow();
+        if (!digest.isEnabled() || window.isZero() || window.isNegative()) {
+            return now;
+        }
+
+        long windowSeconds = Math.max(window.toSeconds(), 1);
+        long epochSecond = now.toEpochSecond(ZoneOffset.UTC);
+        long windowEnd = (epochSecond / windowSeconds + 1) * windowSeconds;
+        return LocalDateTime.ofEpochSecond(windowEnd, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,215 @@
+package com.priceprocessor.services.queue;
+
+import com.priceprocessor.config.NotificationOutboxProperties;
+import com.priceprocessor.dtos.queue.EmailNotification;
+import com.priceprocessor.models.OutboxNotification;
+import com.priceprocessor.repositories.OutboxNotificationRepository;
+import com.priceprocessor.services.MetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes notifications from the outbox through the active {@link NotificationProducer}.
+ * Each batch is claimed in a short transaction, published without holding a connection and settled
+ * in a second transaction: acknowledged rows are deleted, failed ones are rescheduled with exponential backoff.
+ * With digests enabled, notifications of one recipient in a batch are merged into a single message.
+ * Delivery is at-least-once - a publish that is acknowledged after the timeout is sent again on retry.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxRelay {
+
+    private final OutboxNotificationRepository outboxNotificationRepository;
+    private final NotificationProducer notificationProducer;
+    private final MetricsService metricsService;
+    private final NotificationOutboxProperties outboxProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval:PT5S}")
+    public void relayScheduled() {
+        relayPending();
+    }
+
+    /**
+     * Drains due notifications batch by batch until a batch comes back smaller than the configured size.
+     */
+    public int relayPending() {
+        int delivered = 0;
+        List<OutboxNotification> batch;
+        do {
+            batch = claimDueNotifications();
+            if (!batch.isEmpty()) {
+                delivered += publish(batch);
+            }
+        } while (batch.size() == outboxProperties.getBatchSize());
+
+        if (delivered > 0) {
+            log.info("Outbox relay delivered {} notifications", delivered);
+        }
+        return delivered;
+    }
+
+    private List<OutboxNotification> claimDueNotifications() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseExpiresAt = now.plus(outboxProperties.getLeaseDuration());
+
+        return transactionTemplate.execute(status -> {
+            List<OutboxNotification> due = outboxNotificationRepository.findDueNotifications(
+                    now, PageRequest.of(0, outboxProperties.getBatchSize()));
+            due.forEach(notification -> notification.claimUntil(leaseExpiresAt));
+            return due;
+        });
+    }
+
+    private int publish(List<OutboxNotification> batch) {
+        List<Delivery> deliveries = toDeliveries(batch);
+        List<CompletableFuture<Void>> sends = deliveries.stream().map(this::send).toList();
+
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                .completeOnTimeout(null, outboxProperties.getPublishTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> null)
+                .join();
+
+        List<OutboxNotification> delivered = new ArrayList<>();
+        Map<Long, String> failed = new LinkedHashMap<>();
+        for (int i = 0; i < deliveries.size(); i++) {
+            CompletableFuture<Void> send = sends.get(i);
+            List<OutboxNotification> notifications = deliveries.get(i).notifications();
+            if (send.isDone() && !send.isCompletedExceptionally()) {
+                delivered.addAll(notifications);
+            } else {
+                String reason = failureReason(send);
+                notifications.forEach(notification -> failed.put(notification.getId(), reason));
+            }
+        }
+
+        settle(delivered, failed);
+        return delivered.size();
+    }
+
+    /**
+     * One message per notification, or with digests enabled one message per recipient.
+     */
+    private List<Delivery> toDeliveries(List<OutboxNotification> batch) {
+        if (!outboxProperties.getDigest().isEnabled()) {
+            return batch.stream().map(notification -> Delivery.of(List.of(notification))).toList();
+        }
+
+        List<Delivery> digests = batch.stream()
+                .collect(Collectors.groupingBy(OutboxNotification::getRecipient, LinkedHashMap::new, Collectors.toList()))
+                .values().stream()
+                .map(Delivery::of)
+                .toList();
+
+        int saved = batch.size() - digests.size();
+        if (saved > 0) {
+            metricsService.incrementNotificationDigestMessagesSaved(saved);
+        }
+        return digests;
+    }
+
+    private CompletableFuture<Void> send(Delivery delivery) {
+        try {
+            return notificationProducer.sendEmailNotification(delivery.message());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void settle(List<OutboxNotification> delivered, Map<Long, String> failed) {
+        LocalDateTime now = LocalDateTime.now();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxNotificationRepository.deleteAllByIdInBatch(delivered.stream().map(OutboxNotification::getId).toList());
+            }
+            if (!failed.isEmpty()) {
+                outboxNotificationRepository.findAllById(failed.keySet())
+                        .forEach(notification -> scheduleRetry(notification, failed.get(notification.getId()), now));
+            }
+        });
+
+        delivered.forEach(notification ->
+                metricsService.recordNotificationOutboxLag(Duration.between(notification.getCreatedAt(), now)));
+    }
+
+    private void scheduleRetry(OutboxNotification notification, String reason, LocalDateTime now) {
+        boolean exhausted = notification.getAttempts() + 1 >= outboxProperties.getMaxAttempts();
+        notification.recordFailure(reason, exhausted ? null : now.plus(backoff(notification.getAttempts())));
+
+        if (exhausted) {
+            metricsService.incrementNotificationOutboxParked();
+            log.error("Notification {} for {} parked after {} attempts. Last error: {}",
+                    notification.getId(), notification.getRecipient(), notification.getAttempts(), reason);
+        } else {
+            metricsService.incrementNotificationOutboxRetry(reason);
+            log.warn("Notification {} for {} failed (attempt {}), retrying at {}. Reason: {}",
+                    notification.getId(), notification.getRecipient(), notification.getAttempts(),
+                    notification.getNextAttemptAt(), reason);
+        }
+    }
+
+    private Duration backoff(int previousAttempts) {
+        Duration backoff = outboxProperties.getRetryBackoff().multipliedBy(1L << Math.min(previousAttempts, 20));
+        return backoff.compareTo(outboxProperties.getMaxBackoff()) > 0 ? outboxProperties.getMaxBackoff() : backoff;
+    }
+
+    private String failureReason(CompletableFuture<Void> send) {
+        if (!send.isDone()) {
+            return "PublishTimeout";
+        }
+        try {
+            send.join();
+            return "Unknown";
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getClass().getSimpleName();
+        }
+    }
+
+    private record Delivery(List<OutboxNotification> notifications, EmailNotification message) {
+
+        static Delivery of(List<OutboxNotification> notifications) {
+            OutboxNotification first = notifications.get(0);
+            String dedupeId = dedupeId(notifications);
+            if (notifications.size() == 1) {
+                return new Delivery(notifications,
+                        EmailNotification.of(dedupeId, first.getRecipient(), first.getSubject(), first.getBody()));
+            }
+
+            String body = notifications.stream()
+                    .map(OutboxNotification::getBody)
+                    .collect(Collectors.joining("\n"));
+            String subject = first.getSubject() + " (" + notifications.size() + " updates)";
+            return new Delivery(notifications, EmailNotification.of(dedupeId, first.getRecipient(), subject, body));
+        }
+
+        // Derived from the outbox ids, so a retry of the same rows carries the same id
+        private static String dedupeId(List<OutboxNotification> notifications) {
+            String ids = notifications.stream()
+                    .map(OutboxNotification::getId)
+                    .sorted()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(","));
+            return UUID.nameUUIDFromBytes(("outbox:" + ids).getBytes(StandardCharsets.UTF_8)).toString();
+        }
+    }
+}
@@ -1,5 +1,12 @@
 package com.priceprocessor.services.queue;
 
+import com.priceprocessor.dtos.queue.EmailNotification;
+
+import java.util.concurrent.CompletableFuture;
+
 public interface NotificationProducer {
-    void sendEmailNotification(String to, String subject, String body);
+    /**
+     * Hands the notification to the broker. The returned future completes once the broker acknowledged it.
+     */
+    CompletableFuture<Void> sendEmailNotification(EmailNotification notification);
 }
\ No newline at end of file
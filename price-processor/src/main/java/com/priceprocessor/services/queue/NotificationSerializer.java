@@ -0,0 +1,25 @@
+package com.priceprocessor.services.queue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.priceprocessor.dtos.queue.EmailNotification;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes notifications with a writer bound to {@link EmailNotification} once, instead of resolving
+ * the serializer and copying the fields into a map for every message.
+ */
+@Component
+public class NotificationSerializer {
+
+    private final ObjectWriter writer;
+
+    public NotificationSerializer(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(EmailNotification.class);
+    }
+
+    public String serialize(EmailNotification notification) throws JsonProcessingException {
+        return writer.writeValueAsString(notification);
+    }
+}
@@ -0,0 +1,10 @@
+-- Runs after Hibernate's schema update on every start (spring.sql.init.platform=mysql).
+-- ddl-auto=update creates the id sequence tables starting at 1, below the ids of rows written while the
+-- tables still used IDENTITY. Each sequence is moved past MAX(id) + allocationSize (50): the pooled optimizer
+-- hands out the 50 ids ending at the value it reads. GREATEST keeps the statements idempotent and never
+-- moves a sequence backwards.
+UPDATE product_observations_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM product_observations));
+
+UPDATE price_history_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM price_history));
@@ -0,0 +1,148 @@
+package com.priceprocessor.config;
+
+import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.dtos.crawler.ScraperUrlRequest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the scraper transport against a local stub scraper.
+ */
+class ScraperHttpClientConfigTest {
+
+    private static final String PRICE_JSON =
+            "{\"found_product_name\":\"Iphone 15\",\"price\":3999.00,\"currency\":\"PLN\",\"ceneo_url\":\"https://www.ceneo.pl/1\"}";
+
+    private final ScraperHttpClientConfig config = new ScraperHttpClientConfig();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private HttpServer stubScraper;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubScraper = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubScraper.createContext("/scrape_direct_url", exchange -> respond(exchange, PRICE_JSON.getBytes(StandardCharsets.UTF_8), false));
+        stubScraper.createContext("/gzip", exchange -> respond(exchange, gzip(PRICE_JSON), true));
+        stubScraper.createContext("/hang", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, PRICE_JSON.getBytes(StandardCharsets.UTF_8), false);
+        });
+        stubScraper.start();
+        baseUrl = "http://127.0.0.1:" + stubScraper.getAddress().getPort();
+
+        ScraperProperties scraperProperties = new ScraperProperties();
+        scraperProperties.getHttp().setReadTimeout(Duration.ofMillis(300));
+        PriceUpdateProperties priceUpdateProperties = new PriceUpdateProperties();
+        priceUpdateProperties.setConcurrency(4);
+
+        connectionManager = config.scraperConnectionManager(scraperProperties, priceUpdateProperties);
+        httpClient = config.scraperHttpClient(connectionManager, scraperProperties);
+        restTemplate = config.restTemplate(httpClient);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        stubScraper.stop(0);
+    }
+
+    @Test
+    void shouldReuseOneKeepAliveConnection_ForSequentialCalls() {
+        // Act
+        for (int i = 0; i < 20; i++) {
+            PriceResponse response = restTemplate.postForObject(
+                    baseUrl + "/scrape_direct_url", new ScraperUrlRequest("https://www.ceneo.pl/" + i), PriceResponse.class);
+            assertThat(response.price()).isEqualByComparingTo(new BigDecimal("3999.00"));
+        }
+
+        // Assert
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void shouldFailWithinReadTimeout_WhenScraperHangs() {
+        // Arrange
+        long startedAt = System.nanoTime();
+
+        // Act & Assert
+        assertThatThrownBy(() -> restTemplate.postForObject(
+                baseUrl + "/hang", new ScraperUrlRequest("https://www.ceneo.pl/1"), PriceResponse.class))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofMillis(1500));
+    }
+
+    @Test
+    void shouldDecompressGzipResponses() {
+        // Act
+        PriceResponse response = restTemplate.postForObject(
+                baseUrl + "/gzip", new ScraperUrlRequest("https://www.ceneo.pl/1"), PriceResponse.class);
+
+        // Assert
+        assertThat(response.foundProductName()).isEqualTo("Iphone 15");
+    }
+
+    @Test
+    void shouldSizePoolFromConcurrency_AndExportPoolMetrics() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // Act
+        config.scraperConnectionPoolMetrics(connectionManager).bindTo(registry);
+
+        // Assert
+        assertThat(connectionManager.getMaxTotal()).isEqualTo(8);
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "scraper").gauge().value())
+                .isEqualTo(8.0);
+    }
+
+    private void respond(HttpExchange exchange, byte[] body, boolean gzipped) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (gzipped) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,7 +1,10 @@
 package com.priceprocessor.controllers;
 
+import com.priceprocessor.dtos.api.PriceUpdateJobResponse;
+import com.priceprocessor.exceptions.PriceUpdateJobNotFoundException;
+import com.priceprocessor.models.PriceUpdateJob;
 import com.priceprocessor.services.JwtService;
-import com.priceprocessor.services.PriceUpdateService;
+import com.priceprocessor.services.PriceUpdateJobManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -9,9 +12,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
+
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = CronController.class, properties = {
@@ -25,31 +32,61 @@ class CronControllerTest {
     private MockMvc mockMvc;
 
     @MockitoBean
-    private PriceUpdateService priceUpdateService;
+    private PriceUpdateJobManager priceUpdateJobManager;
 
     @MockitoBean
     private JwtService jwtService;
 
     @Test
-    void shouldTriggerBatchUpdate_AndReturnCount() throws Exception {
+    void shouldAcceptBatchUpdate_AndReturnJobLocation() throws Exception {
         // Arrange
-        int updatedCount = 42;
-        when(priceUpdateService.updateOutdatedPrices()).thenReturn(updatedCount);
+        when(priceUpdateJobManager.startOrAttach()).thenReturn(createJobResponse(PriceUpdateJob.Status.RUNNING, 0, 120L));
 
         // Act & Assert
         mockMvc.perform(post("/api/cron/update-prices"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/cron/jobs/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    void shouldReturnJobProgress_WhenJobExists() throws Exception {
+        // Arrange
+        when(priceUpdateJobManager.getJobStatus("job-1")).thenReturn(createJobResponse(PriceUpdateJob.Status.COMPLETED, 42, 7L));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/cron/jobs/job-1"))
                 .andExpect(status().isOk())
-                .andExpect(content().string("Batch update finished. Processed: " + updatedCount));
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.processed").value(42))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.remaining").value(7));
     }
 
     @Test
-    void shouldReturn500_WhenServiceFails() throws Exception {
+    void shouldReturn404_WhenJobIsUnknown() throws Exception {
         // Arrange
-        when(priceUpdateService.updateOutdatedPrices()).thenThrow(new RuntimeException("Database error"));
+        when(priceUpdateJobManager.getJobStatus("missing")).thenThrow(new PriceUpdateJobNotFoundException("missing"));
 
         // Act & Assert
+        mockMvc.perform(get("/api/cron/jobs/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value("JOB_NOT_FOUND"));
+    }
+
+    @Test
+    void shouldReturn500_WhenJobCannotBeStarted() throws Exception {
+        // Arrange
+        when(priceUpdateJobManager.startOrAttach()).thenThrow(new RuntimeException("Executor shut down"));
 
+        // Act & Assert
         mockMvc.perform(post("/api/cron/update-prices"))
                 .andExpect(status().isInternalServerError());
     }
-}
\ No newline at end of file
+
+    private PriceUpdateJobResponse createJobResponse(PriceUpdateJob.Status status, int processed, Long remaining) {
+        return new PriceUpdateJobResponse("job-1", status, processed, 3, remaining, 1.5,
+                LocalDateTime.now().minusMinutes(1), null, null);
+    }
+}
@@ -21,6 +21,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -99,6 +100,34 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.productName").value("TV"));
     }
 
+    @Test
+    void shouldUpdateAlertRule() throws Exception {
+        Long productId = 1L;
+        PriceAlertRule rule = new PriceAlertRule(new BigDecimal("1500.00"), new BigDecimal("10"));
+
+        when(productService.updateAlertRule(productId, rule)).thenReturn(rule);
+
+        mockMvc.perform(put("/api/products/{id}/alert-rule", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(rule)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.targetPrice").value(1500.00))
+                .andExpect(jsonPath("$.minDropPercent").value(10));
+    }
+
+    @Test
+    void shouldReturn400_WhenAlertRuleDropExceedsHundredPercent() throws Exception {
+        PriceAlertRule rule = new PriceAlertRule(null, new BigDecimal("150"));
+
+        mockMvc.perform(put("/api/products/{id}/alert-rule", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(rule)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(ErrorCode.VALIDATION_FAILED.name()));
+
+        verifyNoInteractions(productService);
+    }
+
     @Test
     void shouldDeleteProduct() throws Exception {
         Long productId = 123L;
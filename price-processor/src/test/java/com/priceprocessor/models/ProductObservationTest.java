@@ -0,0 +1,75 @@
+package com.priceprocessor.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductObservationTest {
+
+    @Test
+    void shouldAlertOnAnyDrop_WhenNoRuleIsSet() {
+        // Arrange
+        ProductObservation observer = observer("100.00", null, null);
+
+        // Act & Assert
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("99.99"))).isTrue();
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("100.0"))).isFalse();
+    }
+
+    @Test
+    void shouldAlertOnlyWhenTargetPriceIsReached() {
+        // Arrange
+        ProductObservation observer = observer("100.00", "80.00", null);
+
+        // Act & Assert
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("85.00"))).isFalse();
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("80.00"))).isTrue();
+    }
+
+    @Test
+    void shouldNotAlertAgain_WhenTargetPriceWasAlreadyReached() {
+        // Arrange
+        ProductObservation observer = observer("75.00", "80.00", null);
+
+        // Act & Assert
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("70.00"))).isFalse();
+    }
+
+    @Test
+    void shouldAlertOnlyWhenDropReachesMinimumPercent() {
+        // Arrange
+        ProductObservation observer = observer("200.00", null, "10");
+
+        // Act & Assert
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("181.00"))).isFalse();
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("180.00"))).isTrue();
+    }
+
+    @Test
+    void shouldUseWhicheverRuleTriggersFirst_WhenBothAreSet() {
+        // Arrange
+        ProductObservation observer = observer("100.00", "95.00", "50");
+
+        // Act & Assert
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("95.00"))).isTrue();
+    }
+
+    @Test
+    void shouldNotAlert_WhenThereIsNoPreviousPrice() {
+        // Arrange
+        ProductObservation observer = observer(null, null, null);
+
+        // Act & Assert
+        assertThat(observer.isAlertTriggeredBy(new BigDecimal("1.00"))).isFalse();
+    }
+
+    private ProductObservation observer(String currentPrice, String targetPrice, String minDropPercent) {
+        return ProductObservation.builder()
+                .currentPrice(currentPrice == null ? null : new BigDecimal(currentPrice))
+                .targetPrice(targetPrice == null ? null : new BigDecimal(targetPrice))
+                .minDropPercent(minDropPercent == null ? null : new BigDecimal(minDropPercent))
+                .build();
+    }
+}
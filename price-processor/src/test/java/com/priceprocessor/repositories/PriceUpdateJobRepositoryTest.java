@@ -0,0 +1,58 @@
+package com.priceprocessor.repositories;
+
+import com.priceprocessor.dtos.api.BatchUpdateResult;
+import com.priceprocessor.models.PriceUpdateJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class PriceUpdateJobRepositoryTest {
+
+    @Autowired
+    private PriceUpdateJobRepository priceUpdateJobRepository;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    @Test
+    void shouldFindLatestRunningJob() {
+        // Arrange
+        priceUpdateJobRepository.save(PriceUpdateJob.started("older", now.minusHours(2)));
+        priceUpdateJobRepository.save(PriceUpdateJob.started("latest", now.minusMinutes(1)));
+        PriceUpdateJob completed = PriceUpdateJob.started("completed", now);
+        completed.complete(new BatchUpdateResult(1, 0, 0), now);
+        priceUpdateJobRepository.save(completed);
+
+        // Act & Assert
+        assertThat(priceUpdateJobRepository.findFirstByStatusOrderByStartedAtDesc(PriceUpdateJob.Status.RUNNING))
+                .map(PriceUpdateJob::getId)
+                .contains("latest");
+    }
+
+    @Test
+    void shouldDeleteOnlyFinishedJobs_StartedBeforeCutoff() {
+        // Arrange
+        PriceUpdateJob oldCompleted = PriceUpdateJob.started("old-completed", now.minusDays(10));
+        oldCompleted.complete(new BatchUpdateResult(1, 0, 0), now.minusDays(10));
+        PriceUpdateJob oldFailed = PriceUpdateJob.started("old-failed", now.minusDays(9));
+        oldFailed.fail("Database error", now.minusDays(9));
+        PriceUpdateJob recent = PriceUpdateJob.started("recent", now.minusDays(1));
+        recent.complete(new BatchUpdateResult(1, 0, 0), now.minusDays(1));
+        priceUpdateJobRepository.save(oldCompleted);
+        priceUpdateJobRepository.save(oldFailed);
+        priceUpdateJobRepository.save(recent);
+        priceUpdateJobRepository.save(PriceUpdateJob.started("old-running", now.minusDays(8)));
+
+        // Act
+        int deleted = priceUpdateJobRepository.deleteFinishedBefore(now.minusDays(7));
+
+        // Assert
+        assertThat(deleted).isEqualTo(2);
+        assertThat(priceUpdateJobRepository.findAll()).extracting(PriceUpdateJob::getId)
+                .containsExactlyInAnyOrder("recent", "old-running");
+    }
+}
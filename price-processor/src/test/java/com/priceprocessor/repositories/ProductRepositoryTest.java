@@ -0,0 +1,101 @@
+package com.priceprocessor.repositories;
+
+import com.priceprocessor.models.ProductDueTime;
+import com.priceprocessor.models.ProductObservation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    @Test
+    void shouldClaimOnlyDueAndUnleasedProducts_OrderedByNextCheck() {
+        // Arrange
+        ProductObservation neverChecked = save("never-checked", null, null);
+        ProductObservation due = save("due", now.minusHours(1), null);
+        ProductObservation expiredLease = save("expired-lease", now.minusHours(2), now.minusMinutes(1));
+        save("not-due", now.plusHours(1), null);
+        save("leased", now.minusHours(3), now.plusMinutes(5));
+
+        // Act
+        List<ProductObservation> claimed = productRepository.findProductsToUpdate(now, PageRequest.of(0, 10));
+
+        // Assert
+        assertThat(claimed).extracting(ProductObservation::getProductName)
+                .containsExactly(neverChecked.getProductName(), expiredLease.getProductName(), due.getProductName());
+        assertThat(productRepository.countProductsToUpdate(now)).isEqualTo(claimed.size());
+    }
+
+    @Test
+    void shouldClaimOnlyDueAndUnleasedProducts_AmongRequestedIds() {
+        // Arrange
+        ProductObservation due = save("due", now.minusHours(1), null);
+        ProductObservation notDue = save("not-due", now.plusHours(1), null);
+        ProductObservation leased = save("leased", now.minusHours(1), now.plusMinutes(5));
+        save("not-requested", now.minusHours(1), null);
+
+        // Act
+        List<ProductObservation> claimed = productRepository.findDueProductsByIds(
+                List.of(due.getId(), notDue.getId(), leased.getId()), now);
+
+        // Assert
+        assertThat(claimed).extracting(ProductObservation::getProductName).containsExactly("due");
+    }
+
+    @Test
+    void shouldLoadDueTimesOfAllProducts() {
+        // Arrange
+        ProductObservation neverChecked = save("never-checked", null, null);
+        ProductObservation scheduled = save("scheduled", now.plusHours(1), null);
+
+        // Act
+        List<ProductDueTime> dueTimes = productRepository.findAllDueTimes();
+
+        // Assert
+        assertThat(dueTimes).containsExactlyInAnyOrder(
+                new ProductDueTime(neverChecked.getId(), null),
+                new ProductDueTime(scheduled.getId(), now.plusHours(1)));
+        assertThat(productRepository.findDueTimesByIds(List.of(scheduled.getId())))
+                .containsExactly(new ProductDueTime(scheduled.getId(), now.plusHours(1)));
+    }
+
+    @Test
+    void shouldNeverClaimOrScheduleParkedProducts() {
+        // Arrange
+        ProductObservation parked = save("parked", now.minusHours(1), null);
+        parked.park("ProductNotFoundInStoreException", now.minusMinutes(5));
+        productRepository.save(parked);
+
+        // Act & Assert
+        assertThat(productRepository.findProductsToUpdate(now, PageRequest.of(0, 10))).isEmpty();
+        assertThat(productRepository.countProductsToUpdate(now)).isZero();
+        assertThat(productRepository.findDueProductsByIds(List.of(parked.getId()), now)).isEmpty();
+        assertThat(productRepository.findAllDueTimes()).isEmpty();
+    }
+
+    private ProductObservation save(String name, LocalDateTime nextCheckAt, LocalDateTime leaseExpiresAt) {
+        ProductObservation product = ProductObservation.builder()
+                .productName(name)
+                .productUrl("https://www.ceneo.pl/" + name)
+                .userEmail("user@test.com")
+                .currentPrice(BigDecimal.TEN)
+                .nextCheckAt(nextCheckAt)
+                .leaseOwner(leaseExpiresAt == null ? null : "worker")
+                .leaseExpiresAt(leaseExpiresAt)
+                .build();
+        return productRepository.save(product);
+    }
+}
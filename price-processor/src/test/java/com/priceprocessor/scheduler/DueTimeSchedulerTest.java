@@ -0,0 +1,179 @@
+package com.priceprocessor.scheduler;
+
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.models.ProductDueTime;
+import com.priceprocessor.repositories.ProductRepository;
+import com.priceprocessor.services.PriceUpdateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DueTimeSchedulerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private PriceUpdateService priceUpdateService;
+
+    private DueTimeScheduler dueTimeScheduler;
+    private PriceUpdateProperties properties;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        properties = new PriceUpdateProperties();
+        properties.setBatchSize(10);
+        properties.getDispatcher().setMaxRate(1000);
+
+        dueTimeScheduler = new DueTimeScheduler(productRepository, priceUpdateService, properties);
+    }
+
+    @Test
+    void shouldDispatchDueProducts_AndKeepFutureOnesQueued() throws Exception {
+        // Arrange
+        dueTimeScheduler.schedule(1L, now.minusMinutes(5));
+        dueTimeScheduler.schedule(2L, null);
+        dueTimeScheduler.schedule(3L, now.plusHours(1));
+        when(productRepository.findDueTimesByIds(anyCollection())).thenReturn(List.of(
+                new ProductDueTime(1L, now.plusHours(2)), new ProductDueTime(2L, now.plusHours(2))));
+
+        // Act
+        int dispatched = dueTimeScheduler.dispatchNext();
+
+        // Assert
+        assertThat(dispatched).isEqualTo(2);
+        assertThat(dispatchedIds()).containsExactly(2L, 1L);
+        assertThat(dueTimeScheduler.scheduledCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSkipStaleEntries_WhenProductWasRescheduledOrRemoved() throws Exception {
+        // Arrange
+        dueTimeScheduler.schedule(1L, now.minusMinutes(5));
+        dueTimeScheduler.schedule(1L, now.plusHours(1));
+        dueTimeScheduler.schedule(2L, now.minusMinutes(4));
+        dueTimeScheduler.onScheduleChanged(ProductScheduleChangedEvent.removed(2L));
+        dueTimeScheduler.schedule(3L, now.minusMinutes(3));
+        when(productRepository.findDueTimesByIds(anyCollection())).thenReturn(List.of(new ProductDueTime(3L, now.plusHours(2))));
+
+        // Act
+        dueTimeScheduler.dispatchNext();
+
+        // Assert
+        assertThat(dispatchedIds()).containsExactly(3L);
+    }
+
+    @Test
+    void shouldForgetProduct_WhenItWasDeletedDuringRefresh() throws Exception {
+        // Arrange
+        dueTimeScheduler.schedule(1L, now.minusMinutes(5));
+        when(productRepository.findDueTimesByIds(anyCollection())).thenReturn(List.of());
+
+        // Act
+        dueTimeScheduler.dispatchNext();
+
+        // Assert
+        assertThat(dueTimeScheduler.scheduledCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepProductScheduled_WhenRefreshFails() throws Exception {
+        // Arrange
+        dueTimeScheduler.schedule(1L, now.minusMinutes(5));
+        when(priceUpdateService.refreshProducts(anyCollection())).thenThrow(new RuntimeException("Database error"));
+        when(productRepository.findDueTimesByIds(anyCollection())).thenReturn(List.of(new ProductDueTime(1L, now.minusMinutes(5))));
+
+        // Act & Assert
+        assertThatThrownBy(() -> dueTimeScheduler.dispatchNext()).isInstanceOf(RuntimeException.class);
+        assertThat(dueTimeScheduler.scheduledCount()).isEqualTo(1);
+        verify(productRepository).findDueTimesByIds(List.of(1L));
+    }
+
+    @Test
+    void shouldRetryAfterLease_WhenProductWasNotRefreshed() throws Exception {
+        // Arrange
+        properties.setLeaseDuration(Duration.ofMinutes(5));
+        dueTimeScheduler.schedule(1L, now.minusMinutes(5));
+        when(productRepository.findDueTimesByIds(anyCollection())).thenReturn(List.of(new ProductDueTime(1L, now.minusMinutes(5))));
+        dueTimeScheduler.dispatchNext();
+
+        // Act
+        dueTimeScheduler.schedule(2L, now.minusMinutes(1));
+        dueTimeScheduler.dispatchNext();
+
+        // Assert
+        ArgumentCaptor<Collection<Long>> captor = captor();
+        verify(priceUpdateService, times(2)).refreshProducts(captor.capture());
+        assertThat(captor.getAllValues().get(1)).containsExactly(2L);
+    }
+
+    @Test
+    void shouldLimitDispatchedProducts_ToBatchSize() throws Exception {
+        // Arrange
+        properties.setBatchSize(2);
+        dueTimeScheduler.schedule(1L, now.minusMinutes(3));
+        dueTimeScheduler.schedule(2L, now.minusMinutes(2));
+        dueTimeScheduler.schedule(3L, now.minusMinutes(1));
+
+        // Act
+        dueTimeScheduler.dispatchNext();
+
+        // Assert
+        assertThat(dispatchedIds()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldPaceDispatches_ToConfiguredRate() throws Exception {
+        // Arrange
+        properties.getDispatcher().setMaxRate(20);
+        dueTimeScheduler.schedule(1L, now.minusMinutes(2));
+        dueTimeScheduler.schedule(2L, now.minusMinutes(1));
+        long startedAt = System.nanoTime();
+
+        // Act
+        dueTimeScheduler.dispatchNext();
+
+        // Assert
+        assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(100_000_000L);
+    }
+
+    @Test
+    void shouldLoadAllProducts_AndDropDeletedOnes_WhenResyncing() {
+        // Arrange
+        dueTimeScheduler.schedule(99L, now.plusHours(1));
+        when(productRepository.findAllDueTimes()).thenReturn(List.of(
+                new ProductDueTime(1L, null), new ProductDueTime(2L, now.plusHours(1))));
+
+        // Act
+        dueTimeScheduler.resync();
+
+        // Assert
+        assertThat(dueTimeScheduler.scheduledCount()).isEqualTo(2);
+    }
+
+    private List<Long> dispatchedIds() {
+        ArgumentCaptor<Collection<Long>> captor = captor();
+        verify(priceUpdateService).refreshProducts(captor.capture());
+        return List.copyOf(captor.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<Collection<Long>> captor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+}
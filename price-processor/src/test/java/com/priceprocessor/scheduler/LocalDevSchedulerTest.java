@@ -1,30 +0,0 @@
-package com.priceprocessor.scheduler;
-
-import com.priceprocessor.services.PriceUpdateService;
-import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-
-@ExtendWith(MockitoExtension.class)
-class LocalDevSchedulerTest {
-
-    @Mock
-    private PriceUpdateService priceUpdateService;
-
-    @InjectMocks
-    private LocalDevScheduler localDevScheduler;
-
-    @Test
-    void shouldTriggerPriceUpdate_WhenScheduledMethodRuns() {
-        // Act
-        localDevScheduler.runLocalBatch();
-
-        // Assert
-        verify(priceUpdateService, times(1)).updateOutdatedPrices();
-    }
-}
\ No newline at end of file
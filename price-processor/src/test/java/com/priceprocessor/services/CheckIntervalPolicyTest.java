@@ -0,0 +1,122 @@
+package com.priceprocessor.services;
+
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.repositories.PriceHistoryRepository;
+import com.priceprocessor.repositories.PriceHistoryRepository.PricePoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CheckIntervalPolicyTest {
+
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+
+    private CheckIntervalPolicy checkIntervalPolicy;
+
+    @BeforeEach
+    void setUp() {
+        PriceUpdateProperties properties = new PriceUpdateProperties();
+        properties.getSchedule().setMinInterval(Duration.ofHours(1));
+        properties.getSchedule().setMaxInterval(Duration.ofHours(24));
+        properties.getSchedule().setLookback(Duration.ofDays(14));
+        properties.getSchedule().setRetryBackoff(Duration.ofMinutes(5));
+        properties.getSchedule().setRetryJitter(0.2);
+
+        checkIntervalPolicy = new CheckIntervalPolicy(priceHistoryRepository, properties);
+    }
+
+    @Test
+    void shouldUseCeiling_WhenPriceDidNotChange() {
+        assertThat(checkIntervalPolicy.intervalFor(0)).isEqualTo(Duration.ofHours(24));
+    }
+
+    @Test
+    void shouldScheduleFirstCheck_AfterCeilingInterval() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+        // Act & Assert
+        assertThat(checkIntervalPolicy.firstCheckTime(now)).isEqualTo(now.plusHours(24));
+    }
+
+    @Test
+    void shouldShortenInterval_WithEveryPriceChange_ButNotBelowFloor() {
+        assertThat(checkIntervalPolicy.intervalFor(1)).isEqualTo(Duration.ofHours(12));
+        assertThat(checkIntervalPolicy.intervalFor(3)).isEqualTo(Duration.ofHours(6));
+        assertThat(checkIntervalPolicy.intervalFor(100)).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void shouldCountPriceChangesPerProduct_FromRecentHistory() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.of(2025, 1, 15, 12, 0);
+        when(priceHistoryRepository.findPricesSince(anyCollection(), any(LocalDateTime.class))).thenReturn(List.of(
+                point(1L, "100.00"), point(1L, "90.00"), point(1L, "90.0"), point(1L, "95.00"),
+                point(2L, "50.00"), point(2L, "50.00")
+        ));
+
+        // Act
+        Map<Long, LocalDateTime> nextCheckTimes = checkIntervalPolicy.nextCheckTimes(List.of(1L, 2L, 3L), now);
+
+        // Assert
+        assertThat(nextCheckTimes)
+                .containsEntry(1L, now.plusHours(8))
+                .containsEntry(2L, now.plusHours(24))
+                .containsEntry(3L, now.plusHours(24));
+    }
+
+    @Test
+    void shouldNotQueryHistory_WhenNoProductsGiven() {
+        assertThat(checkIntervalPolicy.nextCheckTimes(List.of(), LocalDateTime.now())).isEmpty();
+        verifyNoInteractions(priceHistoryRepository);
+    }
+
+    @Test
+    void shouldDoubleRetryDelay_WithEveryFailure_ButNotAboveCeiling() {
+        assertThat(checkIntervalPolicy.retryDelay(1)).isEqualTo(Duration.ofMinutes(5));
+        assertThat(checkIntervalPolicy.retryDelay(2)).isEqualTo(Duration.ofMinutes(10));
+        assertThat(checkIntervalPolicy.retryDelay(4)).isEqualTo(Duration.ofMinutes(40));
+        assertThat(checkIntervalPolicy.retryDelay(20)).isEqualTo(Duration.ofHours(24));
+        assertThat(checkIntervalPolicy.retryDelay(Integer.MAX_VALUE)).isEqualTo(Duration.ofHours(24));
+    }
+
+    @Test
+    void shouldSpreadRetryTimes_WithinJitterRange() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(checkIntervalPolicy.retryTime(2, now))
+                    .isBetween(now.plusMinutes(8), now.plusMinutes(12));
+        }
+    }
+
+    private PricePoint point(Long productId, String price) {
+        return new PricePoint() {
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public BigDecimal getPrice() {
+                return new BigDecimal(price);
+            }
+        };
+    }
+}
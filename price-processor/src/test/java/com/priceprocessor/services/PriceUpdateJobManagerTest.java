@@ -0,0 +1,209 @@
+package com.priceprocessor.services;
+
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.dtos.api.BatchUpdateResult;
+import com.priceprocessor.dtos.api.PriceUpdateJobResponse;
+import com.priceprocessor.exceptions.PriceUpdateJobNotFoundException;
+import com.priceprocessor.models.PriceUpdateJob;
+import com.priceprocessor.repositories.PriceUpdateJobRepository;
+import com.priceprocessor.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceUpdateJobManagerTest {
+
+    @Mock
+    private PriceUpdateService priceUpdateService;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private PriceUpdateJobRepository priceUpdateJobRepository;
+
+    // Stands in for the price_update_jobs table, shared by every instance
+    private final Map<String, PriceUpdateJob> storedJobs = new ConcurrentHashMap<>();
+    private ExecutorService priceUpdateJobExecutor;
+    private PriceUpdateJobManager priceUpdateJobManager;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(priceUpdateJobRepository.save(any(PriceUpdateJob.class))).thenAnswer(invocation -> {
+            PriceUpdateJob job = invocation.getArgument(0);
+            storedJobs.put(job.getId(), job);
+            return job;
+        });
+        lenient().when(priceUpdateJobRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(storedJobs.get(invocation.<String>getArgument(0))));
+        lenient().when(priceUpdateJobRepository.findFirstByStatusOrderByStartedAtDesc(any(PriceUpdateJob.Status.class)))
+                .thenAnswer(invocation -> storedJobs.values().stream()
+                        .filter(job -> job.getStatus() == invocation.getArgument(0))
+                        .max(Comparator.comparing(PriceUpdateJob::getStartedAt)));
+
+        priceUpdateJobExecutor = Executors.newSingleThreadExecutor();
+        priceUpdateJobManager = new PriceUpdateJobManager(priceUpdateService, productRepository, priceUpdateJobRepository,
+                new PriceUpdateProperties(), priceUpdateJobExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        priceUpdateJobExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldAttachToRunningJob_WhenTriggeredTwice() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(priceUpdateService.updateOutdatedPrices(any(PriceUpdateService.ProgressListener.class)))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return new BatchUpdateResult(0, 0, 0);
+                });
+
+        // Act
+        PriceUpdateJobResponse first = priceUpdateJobManager.startOrAttach();
+        PriceUpdateJobResponse second = priceUpdateJobManager.startOrAttach();
+        release.countDown();
+
+        // Assert
+        assertThat(second.jobId()).isEqualTo(first.jobId());
+        assertThat(second.status()).isEqualTo(PriceUpdateJob.Status.RUNNING);
+        awaitCompletion(first.jobId());
+        verify(priceUpdateService, times(1)).updateOutdatedPrices(any(PriceUpdateService.ProgressListener.class));
+    }
+
+    @Test
+    void shouldReportPartialResultsAndLiveRemaining_WhileJobRuns() throws Exception {
+        // Arrange
+        CountDownLatch pageApplied = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(priceUpdateService.updateOutdatedPrices(any(PriceUpdateService.ProgressListener.class)))
+                .thenAnswer(invocation -> {
+                    PriceUpdateService.ProgressListener listener = invocation.getArgument(0);
+                    listener.onPageApplied(10, 2);
+                    pageApplied.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return new BatchUpdateResult(10, 2, 0);
+                });
+        when(productRepository.countProductsToUpdate(any(LocalDateTime.class))).thenReturn(90L);
+
+        // Act
+        String jobId = priceUpdateJobManager.startOrAttach().jobId();
+        assertThat(pageApplied.await(5, TimeUnit.SECONDS)).isTrue();
+        PriceUpdateJobResponse status = priceUpdateJobManager.getJobStatus(jobId);
+        release.countDown();
+
+        // Assert
+        assertThat(status.status()).isEqualTo(PriceUpdateJob.Status.RUNNING);
+        assertThat(status.processed()).isEqualTo(10);
+        assertThat(status.failed()).isEqualTo(2);
+        assertThat(status.remaining()).isEqualTo(90L);
+    }
+
+    @Test
+    void shouldStartNewJob_AfterPreviousOneCompleted() throws Exception {
+        // Arrange
+        when(priceUpdateService.updateOutdatedPrices(any(PriceUpdateService.ProgressListener.class)))
+                .thenReturn(new BatchUpdateResult(5, 0, 3));
+
+        // Act
+        String firstJobId = priceUpdateJobManager.startOrAttach().jobId();
+        PriceUpdateJobResponse completed = awaitCompletion(firstJobId);
+        String secondJobId = priceUpdateJobManager.startOrAttach().jobId();
+
+        // Assert
+        assertThat(completed.status()).isEqualTo(PriceUpdateJob.Status.COMPLETED);
+        assertThat(completed.remaining()).isEqualTo(3L);
+        assertThat(completed.finishedAt()).isNotNull();
+        assertThat(secondJobId).isNotEqualTo(firstJobId);
+    }
+
+    @Test
+    void shouldMarkJobFailed_WhenUpdateThrows() throws Exception {
+        // Arrange
+        when(priceUpdateService.updateOutdatedPrices(any(PriceUpdateService.ProgressListener.class)))
+                .thenThrow(new RuntimeException("Database error"));
+
+        // Act
+        String jobId = priceUpdateJobManager.startOrAttach().jobId();
+        PriceUpdateJobResponse status = awaitCompletion(jobId);
+
+        // Assert
+        assertThat(status.status()).isEqualTo(PriceUpdateJob.Status.FAILED);
+        assertThat(status.error()).isEqualTo("Database error");
+    }
+
+    @Test
+    void shouldAttachToJobRunningOnAnotherInstance() {
+        // Arrange
+        PriceUpdateJob elsewhere = PriceUpdateJob.started("job-elsewhere", LocalDateTime.now().minusSeconds(30));
+        elsewhere.recordPage(20, 1, LocalDateTime.now());
+        storedJobs.put(elsewhere.getId(), elsewhere);
+        when(productRepository.countProductsToUpdate(any(LocalDateTime.class))).thenReturn(80L);
+
+        // Act
+        PriceUpdateJobResponse attached = priceUpdateJobManager.startOrAttach();
+
+        // Assert
+        assertThat(attached.jobId()).isEqualTo("job-elsewhere");
+        assertThat(attached.processed()).isEqualTo(20);
+        verifyNoInteractions(priceUpdateService);
+    }
+
+    @Test
+    void shouldFailAbandonedJob_AndStartNewOne() throws Exception {
+        // Arrange
+        PriceUpdateJob abandoned = PriceUpdateJob.started("job-abandoned", LocalDateTime.now().minusHours(1));
+        storedJobs.put(abandoned.getId(), abandoned);
+        when(priceUpdateService.updateOutdatedPrices(any(PriceUpdateService.ProgressListener.class)))
+                .thenReturn(new BatchUpdateResult(0, 0, 0));
+
+        // Act
+        String jobId = priceUpdateJobManager.startOrAttach().jobId();
+        awaitCompletion(jobId);
+
+        // Assert
+        assertThat(jobId).isNotEqualTo("job-abandoned");
+        PriceUpdateJobResponse status = priceUpdateJobManager.getJobStatus("job-abandoned");
+        assertThat(status.status()).isEqualTo(PriceUpdateJob.Status.FAILED);
+        assertThat(status.error()).contains("Abandoned");
+        verify(priceUpdateJobRepository).deleteFinishedBefore(any(LocalDateTime.class));
+    }
+
+    @Test
+    void shouldThrowException_WhenJobIsUnknown() {
+        // Act & Assert
+        assertThatThrownBy(() -> priceUpdateJobManager.getJobStatus("missing"))
+                .isInstanceOf(PriceUpdateJobNotFoundException.class)
+                .hasMessageContaining("missing");
+    }
+
+    private PriceUpdateJobResponse awaitCompletion(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        PriceUpdateJobResponse status = priceUpdateJobManager.getJobStatus(jobId);
+        while (status.status() == PriceUpdateJob.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = priceUpdateJobManager.getJobStatus(jobId);
+        }
+        return status;
+    }
+}
@@ -1,26 +1,57 @@
 package com.priceprocessor.services;
 
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.dtos.api.BatchUpdateResult;
 import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.exceptions.PriceFetchException;
+import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
+import com.priceprocessor.exceptions.crawler.InvalidStoreUrlException;
+import com.priceprocessor.exceptions.crawler.RateLimitExceededException;
+import com.priceprocessor.exceptions.crawler.ScraperUnavailableException;
 import com.priceprocessor.models.ProductObservation;
+import com.priceprocessor.models.PriceHistory;
+import com.priceprocessor.repositories.PriceHistoryRepository;
 import com.priceprocessor.repositories.ProductRepository;
 import com.priceprocessor.services.clients.PriceClient;
-import com.priceprocessor.services.queue.NotificationProducer;
+import com.priceprocessor.services.clients.UrlPriceResult;
+import com.priceprocessor.services.queue.NotificationOutbox;
+import com.priceprocessor.services.queue.NotificationOutboxRelay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -30,28 +61,61 @@ class PriceUpdateServiceTest {
     @Mock
     private ProductRepository productRepository;
     @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+    @Mock
     private PriceClient priceClient;
     @Mock
-    private NotificationProducer notificationProducer;
+    private NotificationOutbox notificationOutbox;
+    @Mock
+    private NotificationOutboxRelay notificationOutboxRelay;
     @Mock
     private MetricsService metricsService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private CheckIntervalPolicy checkIntervalPolicy;
 
-    @InjectMocks
     private PriceUpdateService priceUpdateService;
+    private PriceUpdateProperties properties;
+    private ExecutorService priceRefreshExecutor;
+
+    private static final int CONCURRENCY = 4;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PriceUpdateProperties();
+        properties.setBatchSize(10);
+        properties.setConcurrency(CONCURRENCY);
+        properties.setTimeBudget(Duration.ofSeconds(30));
+
+        lenient().when(priceClient.isAvailable()).thenReturn(true);
+
+        priceRefreshExecutor = Executors.newFixedThreadPool(CONCURRENCY);
+        priceUpdateService = new PriceUpdateService(
+                productRepository, priceHistoryRepository, priceClient, notificationOutbox, notificationOutboxRelay, metricsService, properties, priceRefreshExecutor,
+                new TransactionTemplate(transactionManager), checkIntervalPolicy);
+    }
+
+    @AfterEach
+    void tearDown() {
+        priceRefreshExecutor.shutdownNow();
+    }
 
     @Test
     void shouldReturnZero_WhenNoProductsToUpdate() {
         // Arrange
-        when(productRepository.findProductsToUpdate(any(Pageable.class)))
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(Collections.emptyList());
 
         // Act
-        int count = priceUpdateService.updateOutdatedPrices();
+        int count = priceUpdateService.updateOutdatedPrices().processed();
 
         // Assert
         assertThat(count).isZero();
-        verifyNoInteractions(priceClient);
-        verifyNoInteractions(notificationProducer);
+        verify(priceClient).isAvailable();
+        verifyNoMoreInteractions(priceClient);
+        verifyNoInteractions(notificationOutbox);
+        verifyNoInteractions(notificationOutboxRelay);
     }
 
     @Test
@@ -63,20 +127,21 @@ class PriceUpdateServiceTest {
         ProductObservation product = createProduct(oldPrice);
         PriceResponse priceResponse = new PriceResponse("New Name", newPrice, "PLN", "http://test.com/product");
 
-        when(productRepository.findProductsToUpdate(any(Pageable.class))).thenReturn(List.of(product));
+        givenProductsToUpdate(List.of(product));
         when(priceClient.checkPriceByUrl(product.getProductUrl())).thenReturn(Optional.of(priceResponse));
 
         // Act
-        int count = priceUpdateService.updateOutdatedPrices();
+        int count = priceUpdateService.updateOutdatedPrices().processed();
 
         // Assert
         assertThat(count).isEqualTo(1);
 
-        verify(notificationProducer).sendEmailNotification(
+        verify(notificationOutbox).enqueue(
                 eq(product.getUserEmail()),
                 eq("Price Drop Alert!"),
                 contains("dropped from " + oldPrice + " to " + newPrice)
         );
+        verify(notificationOutboxRelay).relayPending();
 
         ArgumentCaptor<ProductObservation> productCaptor = ArgumentCaptor.forClass(ProductObservation.class);
         verify(productRepository).save(productCaptor.capture());
@@ -96,14 +161,14 @@ class PriceUpdateServiceTest {
         ProductObservation product = createProduct(oldPrice);
         PriceResponse priceResponse = new PriceResponse("New Name", newPrice, "PLN", "http://test.com/product");
 
-        when(productRepository.findProductsToUpdate(any(Pageable.class))).thenReturn(List.of(product));
+        givenProductsToUpdate(List.of(product));
         when(priceClient.checkPriceByUrl(anyString())).thenReturn(Optional.of(priceResponse));
 
         // Act
         priceUpdateService.updateOutdatedPrices();
 
         // Assert
-        verify(notificationProducer, never()).sendEmailNotification(anyString(), anyString(), anyString());
+        verify(notificationOutbox, never()).enqueue(anyString(), anyString(), anyString());
         verify(productRepository).save(product);
     }
 
@@ -113,14 +178,14 @@ class PriceUpdateServiceTest {
         ProductObservation product = createProduct(new BigDecimal("100.00"));
         LocalDateTime timeBefore = LocalDateTime.now().minusSeconds(1);
 
-        when(productRepository.findProductsToUpdate(any(Pageable.class))).thenReturn(List.of(product));
+        givenProductsToUpdate(List.of(product));
         when(priceClient.checkPriceByUrl(anyString())).thenReturn(Optional.empty());
 
         // Act
         priceUpdateService.updateOutdatedPrices();
 
         // Assert
-        verify(notificationProducer, never()).sendEmailNotification(anyString(), anyString(), anyString());
+        verify(notificationOutbox, never()).enqueue(anyString(), anyString(), anyString());
 
         ArgumentCaptor<ProductObservation> productCaptor = ArgumentCaptor.forClass(ProductObservation.class);
         verify(productRepository).save(productCaptor.capture());
@@ -133,23 +198,692 @@ class PriceUpdateServiceTest {
         // Arrange
         ProductObservation product = createProduct(new BigDecimal("100.00"));
 
-        when(productRepository.findProductsToUpdate(any(Pageable.class))).thenReturn(List.of(product));
+        givenProductsToUpdate(List.of(product));
         when(priceClient.checkPriceByUrl(anyString())).thenThrow(new RuntimeException("Connection timeout"));
 
         // Act
-        int count = priceUpdateService.updateOutdatedPrices();
+        int count = priceUpdateService.updateOutdatedPrices().processed();
 
         // Assert
         assertThat(count).isEqualTo(1);
 
         verify(productRepository).save(product);
-        verify(notificationProducer, never()).sendEmailNotification(anyString(), anyString(), anyString());
+        verify(notificationOutbox, never()).enqueue(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void shouldScrapeProductsInParallel_AndRecordBatchThroughput() {
+        // Arrange
+        List<ProductObservation> products = List.of(
+                createProduct(1L, new BigDecimal("100.00")),
+                createProduct(2L, new BigDecimal("100.00")),
+                createProduct(3L, new BigDecimal("100.00")),
+                createProduct(4L, new BigDecimal("100.00"))
+        );
+        CountDownLatch allScrapesStarted = new CountDownLatch(CONCURRENCY);
+
+        givenProductsToUpdate(products);
+        when(priceClient.checkPriceByUrl(anyString())).thenAnswer(invocation -> {
+            // Every call waits for the others - this only completes when calls really overlap
+            allScrapesStarted.countDown();
+            if (!allScrapesStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Scraper calls were not executed concurrently");
+            }
+            return Optional.of(new PriceResponse("Name", new BigDecimal("100.00"), "PLN", invocation.getArgument(0)));
+        });
+
+        // Act
+        int count = priceUpdateService.updateOutdatedPrices().processed();
+
+        // Assert
+        assertThat(count).isEqualTo(4);
+        verify(metricsService, times(4)).incrementProductPriceUpdateSuccess();
+        verify(metricsService).recordPriceUpdateBatch(eq(4), any(Duration.class));
+        verify(productRepository, times(4)).save(any(ProductObservation.class));
+    }
+
+    @Test
+    void shouldScrapeOutsideOfTransaction_AndApplyResultsInSeparateWriteTransaction() {
+        // Arrange
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+        PriceResponse priceResponse = new PriceResponse("New Name", new BigDecimal("90.00"), "PLN", product.getProductUrl());
+
+        givenProductsToUpdate(List.of(product));
+        when(priceClient.checkPriceByUrl(product.getProductUrl())).thenReturn(Optional.of(priceResponse));
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        InOrder inOrder = inOrder(productRepository, priceClient, transactionManager);
+        inOrder.verify(transactionManager).getTransaction(any(TransactionDefinition.class));
+        inOrder.verify(productRepository).findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(priceClient).checkPriceByUrl(product.getProductUrl());
+        inOrder.verify(transactionManager).getTransaction(any(TransactionDefinition.class));
+        inOrder.verify(productRepository).findAllById(List.of(product.getId()));
+        inOrder.verify(productRepository).save(product);
+        inOrder.verify(transactionManager).commit(any());
+
+        // The second, empty page ends the run
+        verify(metricsService, times(2)).recordPriceUpdatePhase(eq("claim"), any(Duration.class));
+        verify(metricsService).recordPriceUpdatePhase(eq("scrape"), any(Duration.class));
+        verify(metricsService).recordPriceUpdatePhase(eq("apply"), any(Duration.class));
+    }
+
+    @Test
+    void shouldSkipProduct_WhenDeletedBetweenClaimAndApply() {
+        // Arrange
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(product), Collections.emptyList());
+        when(productRepository.findAllById(anyIterable())).thenReturn(Collections.emptyList());
+        when(priceClient.checkPriceByUrl(anyString()))
+                .thenReturn(Optional.of(new PriceResponse("Name", BigDecimal.ONE, "PLN", product.getProductUrl())));
+
+        // Act
+        int count = priceUpdateService.updateOutdatedPrices().processed();
+
+        // Assert
+        // Only applied results count, and there was nothing left to apply it to
+        assertThat(count).isZero();
+        verify(productRepository, never()).save(any(ProductObservation.class));
+    }
+
+    @Test
+    void shouldScrapeSharedUrlOnce_AndApplyResultToEveryObserver() {
+        // Arrange
+        ProductObservation first = createProduct(1L, new BigDecimal("100.00"));
+        ProductObservation second = createProduct(2L, new BigDecimal("100.00"));
+        first.setProductUrl("https://www.ceneo.pl/123");
+        second.setProductUrl("https://www.ceneo.pl/123?utm_source=newsletter");
+        second.setUserEmail("other@test.com");
+
+        givenProductsToUpdate(List.of(first, second));
+        when(priceClient.checkPriceByUrl("https://www.ceneo.pl/123"))
+                .thenReturn(Optional.of(new PriceResponse("Shared", new BigDecimal("80.00"), "PLN", "https://www.ceneo.pl/123")));
+
+        // Act
+        int count = priceUpdateService.updateOutdatedPrices().processed();
+
+        // Assert
+        assertThat(count).isEqualTo(2);
+        verify(priceClient, times(1)).checkPriceByUrl(anyString());
+        verify(metricsService).incrementScraperRequestsSaved(1);
+        verify(notificationOutbox).enqueue(eq("user@test.com"), anyString(), anyString());
+        verify(notificationOutbox).enqueue(eq("other@test.com"), anyString(), anyString());
+        assertThat(first.getCurrentPrice()).isEqualTo(new BigDecimal("80.00"));
+        assertThat(second.getCurrentPrice()).isEqualTo(new BigDecimal("80.00"));
+    }
+
+    @Test
+    void shouldCheckPricesInOneBatchPerWorker_WhenClientSupportsBatch() {
+        // Arrange
+        List<ProductObservation> products = List.of(
+                createProduct(1L, new BigDecimal("100.00")),
+                createProduct(2L, new BigDecimal("100.00")),
+                createProduct(3L, new BigDecimal("100.00")),
+                createProduct(4L, new BigDecimal("100.00")),
+                createProduct(5L, new BigDecimal("100.00")),
+                createProduct(6L, new BigDecimal("100.00")),
+                createProduct(7L, new BigDecimal("100.00")),
+                createProduct(8L, new BigDecimal("100.00"))
+        );
+
+        givenProductsToUpdate(products);
+        when(priceClient.supportsBatch()).thenReturn(true);
+        doAnswer(invocation -> {
+            Collection<String> urls = invocation.getArgument(0);
+            Consumer<UrlPriceResult> resultConsumer = invocation.getArgument(1);
+            urls.forEach(url -> resultConsumer.accept(UrlPriceResult.success(url,
+                    Optional.of(new PriceResponse("Name", new BigDecimal("90.00"), "PLN", url)))));
+            return null;
+        }).when(priceClient).checkPricesByUrls(anyCollection(), any());
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(result.processed()).isEqualTo(8);
+        assertThat(result.failed()).isZero();
+        assertThat(products).allSatisfy(product -> assertThat(product.getCurrentPrice()).isEqualByComparingTo("90.00"));
+        verify(priceClient, times(CONCURRENCY)).checkPricesByUrls(argThat(urls -> urls.size() == 2), any());
+        verify(priceClient, never()).checkPriceByUrl(anyString());
+    }
+
+    @Test
+    void shouldFailOnlyUrlsWithoutResult_WhenBatchEndsEarly() {
+        // Arrange
+        ProductObservation answered = createProduct(1L, new BigDecimal("100.00"));
+        ProductObservation unanswered = createProduct(2L, new BigDecimal("100.00"));
+        properties.setConcurrency(1);
+
+        givenProductsToUpdate(List.of(answered, unanswered));
+        when(priceClient.supportsBatch()).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<UrlPriceResult> resultConsumer = invocation.getArgument(1);
+            resultConsumer.accept(UrlPriceResult.success(answered.getProductUrl(),
+                    Optional.of(new PriceResponse("Name", new BigDecimal("90.00"), "PLN", answered.getProductUrl()))));
+            throw new PriceFetchException("Scraper network error (timeout/unreachable)");
+        }).when(priceClient).checkPricesByUrls(anyCollection(), any());
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(result.processed()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(answered.getCurrentPrice()).isEqualByComparingTo("90.00");
+        assertThat(unanswered.getFailureCount()).isEqualTo(1);
+        assertThat(unanswered.getLastErrorClass()).isEqualTo("PriceFetchException");
+    }
+
+    @Test
+    void shouldKeepMoreScrapesInFlightThanRefreshThreads_WhenClientIsNonBlocking() throws Exception {
+        // Arrange
+        List<ProductObservation> products = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            products.add(createProduct(id, new BigDecimal("100.00")));
+        }
+        Map<String, CompletableFuture<Optional<PriceResponse>>> inFlight = new ConcurrentHashMap<>();
+
+        givenProductsToUpdate(products);
+        when(priceClient.supportsAsync()).thenReturn(true);
+        when(priceClient.checkPriceByUrlAsync(anyString())).thenAnswer(invocation -> {
+            CompletableFuture<Optional<PriceResponse>> scrape = new CompletableFuture<>();
+            inFlight.put(invocation.getArgument(0), scrape);
+            return scrape;
+        });
+
+        // Act
+        CompletableFuture<BatchUpdateResult> run = CompletableFuture.supplyAsync(() -> priceUpdateService.updateOutdatedPrices());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight.size() < products.size() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        int startedBeforeAnyCompleted = inFlight.size();
+        inFlight.forEach((url, scrape) -> scrape.complete(Optional.of(new PriceResponse("Name", new BigDecimal("90.00"), "PLN", url))));
+        BatchUpdateResult result = run.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(startedBeforeAnyCompleted).isEqualTo(10).isGreaterThan(CONCURRENCY);
+        assertThat(result.processed()).isEqualTo(10);
+        assertThat(result.failed()).isZero();
+        verify(priceClient, never()).checkPriceByUrl(anyString());
+    }
+
+    @Test
+    void shouldLimitScrapesInFlight_ToMaxInFlight() throws Exception {
+        // Arrange
+        properties.setMaxInFlight(2);
+        List<ProductObservation> products = List.of(
+                createProduct(1L, new BigDecimal("100.00")),
+                createProduct(2L, new BigDecimal("100.00")),
+                createProduct(3L, new BigDecimal("100.00"))
+        );
+        List<CompletableFuture<Optional<PriceResponse>>> started = new CopyOnWriteArrayList<>();
+
+        givenProductsToUpdate(products);
+        when(priceClient.supportsAsync()).thenReturn(true);
+        when(priceClient.checkPriceByUrlAsync(anyString())).thenAnswer(invocation -> {
+            CompletableFuture<Optional<PriceResponse>> scrape = new CompletableFuture<>();
+            started.add(scrape);
+            return scrape;
+        });
+
+        // Act
+        CompletableFuture<BatchUpdateResult> run = CompletableFuture.supplyAsync(() -> priceUpdateService.updateOutdatedPrices());
+        verify(priceClient, timeout(5000).times(2)).checkPriceByUrlAsync(anyString());
+        Thread.sleep(50);
+        int startedWhileFull = started.size();
+        started.get(0).completeExceptionally(new ProductNotFoundInStoreException("Not found"));
+        verify(priceClient, timeout(5000).times(3)).checkPriceByUrlAsync(anyString());
+        started.forEach(scrape -> scrape.complete(Optional.empty()));
+        BatchUpdateResult result = run.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(startedWhileFull).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(products.get(0).isParked()).isTrue();
+    }
+
+    @Test
+    void shouldKeepClaimingPages_UntilNothingIsDue_AndReportRemaining() {
+        // Arrange
+        ProductObservation first = createProduct(1L, new BigDecimal("100.00"));
+        ProductObservation second = createProduct(2L, new BigDecimal("100.00"));
+
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(first), List.of(second), Collections.emptyList());
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(first), List.of(second));
+        when(priceClient.checkPriceByUrl(anyString())).thenReturn(Optional.empty());
+        when(productRepository.countProductsToUpdate(any(LocalDateTime.class))).thenReturn(0L);
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(result.processed()).isEqualTo(2);
+        assertThat(result.remaining()).isZero();
+        verify(productRepository, times(3)).findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    @Test
+    void shouldReportProgressAfterEveryPage_AndCountFailedRefreshes() {
+        // Arrange
+        ProductObservation first = createProduct(1L, new BigDecimal("100.00"));
+        ProductObservation second = createProduct(2L, new BigDecimal("100.00"));
+        PriceUpdateService.ProgressListener progressListener = mock(PriceUpdateService.ProgressListener.class);
+
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(first), List.of(second), Collections.emptyList());
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(first), List.of(second));
+        when(priceClient.checkPriceByUrl(anyString())).thenReturn(Optional.empty());
+        when(productRepository.countProductsToUpdate(any(LocalDateTime.class))).thenReturn(0L);
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices(progressListener);
+
+        // Assert
+        assertThat(result.failed()).isEqualTo(2);
+        verify(progressListener, times(2)).onPageApplied(1, 1);
+    }
+
+    @Test
+    void shouldRefreshOnlyDispatchedProducts_WithoutRelayingNotifications() {
+        // Arrange
+        ProductObservation product = createProduct(1L, new BigDecimal("100.00"));
+        PriceResponse priceResponse = new PriceResponse("New Name", new BigDecimal("80.00"), "PLN", "http://test.com/product");
+
+        when(productRepository.findDueProductsByIds(eq(List.of(1L, 2L)), any(LocalDateTime.class))).thenReturn(List.of(product));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(priceClient.checkPriceByUrl(product.getProductUrl())).thenReturn(Optional.of(priceResponse));
+
+        // Act
+        int count = priceUpdateService.refreshProducts(List.of(1L, 2L));
+
+        // Assert
+        assertThat(count).isEqualTo(1);
+        assertThat(product.getCurrentPrice()).isEqualByComparingTo("80.00");
+        verify(productRepository, never()).findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class));
+        verifyNoInteractions(notificationOutboxRelay);
+    }
+
+    @Test
+    void shouldDeferAllProducts_WhenScraperCircuitIsOpen() {
+        // Arrange
+        when(priceClient.isAvailable()).thenReturn(false);
+        when(productRepository.countProductsToUpdate(any(LocalDateTime.class))).thenReturn(12L);
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices();
+        int refreshed = priceUpdateService.refreshProducts(List.of(1L));
+
+        // Assert
+        assertThat(result.processed()).isZero();
+        assertThat(result.remaining()).isEqualTo(12L);
+        assertThat(refreshed).isZero();
+        verify(productRepository, never()).findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class));
+        verify(productRepository, never()).findDueProductsByIds(anyCollection(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void shouldKeepScheduleAndReleaseLease_WhenScrapeIsRejectedByOpenCircuit() {
+        // Arrange
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+        LocalDateTime nextCheckAt = LocalDateTime.now().minusMinutes(1);
+        product.setNextCheckAt(nextCheckAt);
+
+        givenProductsToUpdate(List.of(product));
+        when(priceClient.checkPriceByUrl(anyString())).thenThrow(new ScraperUnavailableException("Scraper circuit is open"));
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(result.failed()).isZero();
+        assertThat(product.getNextCheckAt()).isEqualTo(nextCheckAt);
+        assertThat(product.getLastCheckedAt()).isNull();
+        assertThat(product.getLeaseOwner()).isNull();
+        verifyNoInteractions(priceHistoryRepository);
+    }
+
+    @Test
+    void shouldDeferRateLimitedProduct_WithoutClaimingItAgainInTheSameRun() {
+        // Arrange
+        ProductObservation limited = createProduct(1L, new BigDecimal("100.00"));
+        ProductObservation other = createProduct(2L, new BigDecimal("100.00"));
+        limited.setNextCheckAt(LocalDateTime.now().minusMinutes(1));
+        other.setNextCheckAt(LocalDateTime.now().minusMinutes(1));
+        List<ProductObservation> products = List.of(limited, other);
+
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class))).thenAnswer(invocation -> {
+            LocalDateTime dueAt = invocation.getArgument(0);
+            return products.stream().filter(product -> !product.getNextCheckAt().isAfter(dueAt)).toList();
+        });
+        when(productRepository.findAllById(anyIterable())).thenReturn(products);
+        when(priceClient.checkPriceByUrl(limited.getProductUrl())).thenThrow(new RateLimitExceededException("Rate limit for test.com exceeded"));
+        when(priceClient.checkPriceByUrl(other.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("New Name", new BigDecimal("100.00"), "PLN", other.getProductUrl())));
+        when(checkIntervalPolicy.nextCheckTimes(anyList(), any(LocalDateTime.class)))
+                .thenReturn(Map.of(2L, LocalDateTime.now().plusHours(1)));
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(result.processed()).isEqualTo(1);
+        assertThat(result.failed()).isZero();
+        assertThat(limited.getFailureCount()).isZero();
+        assertThat(limited.getLastCheckedAt()).isNull();
+        assertThat(limited.getLeaseOwner()).isNull();
+        // Due again for the next run, but no longer claimed by this one
+        assertThat(limited.getNextCheckAt()).isBefore(LocalDateTime.now().plusSeconds(1));
+        verify(productRepository, times(2)).findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class));
+        verify(priceClient).checkPriceByUrl(limited.getProductUrl());
+    }
+
+    @Test
+    void shouldStopClaimingPages_WhenTimeBudgetIsExhausted() {
+        // Arrange
+        properties.setTimeBudget(Duration.ZERO);
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(product));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(priceClient.checkPriceByUrl(anyString())).thenReturn(Optional.empty());
+        when(productRepository.countProductsToUpdate(any(LocalDateTime.class))).thenReturn(41L);
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(result.processed()).isEqualTo(1);
+        assertThat(result.remaining()).isEqualTo(41L);
+        verify(productRepository, times(1)).findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    @Test
+    void shouldScheduleNextCheck_FromPolicy_ForRefreshedAndFailedProducts() {
+        // Arrange
+        ProductObservation refreshed = createProduct(1L, new BigDecimal("100.00"));
+        ProductObservation failed = createProduct(2L, new BigDecimal("100.00"));
+        LocalDateTime nextCheck = LocalDateTime.now().plusHours(6);
+        LocalDateTime retryTime = LocalDateTime.now().plusHours(1);
+
+        givenProductsToUpdate(List.of(refreshed, failed));
+        when(priceClient.checkPriceByUrl(refreshed.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("Name", new BigDecimal("100.00"), "PLN", refreshed.getProductUrl())));
+        when(priceClient.checkPriceByUrl(failed.getProductUrl())).thenThrow(new RuntimeException("Connection timeout"));
+        when(checkIntervalPolicy.nextCheckTimes(eq(List.of(1L)), any(LocalDateTime.class))).thenReturn(Map.of(1L, nextCheck));
+        when(checkIntervalPolicy.retryTime(eq(1), any(LocalDateTime.class))).thenReturn(retryTime);
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(refreshed.getNextCheckAt()).isEqualTo(nextCheck);
+        assertThat(failed.getNextCheckAt()).isEqualTo(retryTime);
+        assertThat(failed.getFailureCount()).isEqualTo(1);
+        assertThat(failed.getLastErrorClass()).isEqualTo("RuntimeException");
+        verify(metricsService).incrementProductPriceUpdateFailure("RuntimeException");
+    }
+
+    @Test
+    void shouldBackOffByFailureCount_AndResetItAfterSuccessfulRefresh() {
+        // Arrange
+        ProductObservation failing = createProduct(1L, new BigDecimal("100.00"));
+        failing.setFailureCount(3);
+        ProductObservation recovering = createProduct(2L, new BigDecimal("100.00"));
+        recovering.setFailureCount(4);
+        recovering.setLastErrorClass("PriceFetchException");
+        LocalDateTime retryTime = LocalDateTime.now().plusMinutes(40);
+
+        givenProductsToUpdate(List.of(failing, recovering));
+        when(priceClient.checkPriceByUrl(failing.getProductUrl())).thenThrow(new PriceFetchException("Scraper network error"));
+        when(priceClient.checkPriceByUrl(recovering.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("Name", new BigDecimal("100.00"), "PLN", recovering.getProductUrl())));
+        when(checkIntervalPolicy.retryTime(eq(4), any(LocalDateTime.class))).thenReturn(retryTime);
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(failing.getFailureCount()).isEqualTo(4);
+        assertThat(failing.getNextCheckAt()).isEqualTo(retryTime);
+        assertThat(recovering.getFailureCount()).isZero();
+        assertThat(recovering.getLastErrorClass()).isNull();
+    }
+
+    @Test
+    void shouldParkProduct_WhenScraperReportsPermanentError() {
+        // Arrange
+        ProductObservation gone = createProduct(1L, new BigDecimal("100.00"));
+        ProductObservation invalid = createProduct(2L, new BigDecimal("100.00"));
+        LocalDateTime nextCheckAt = LocalDateTime.now().minusMinutes(1);
+        gone.setNextCheckAt(nextCheckAt);
+
+        givenProductsToUpdate(List.of(gone, invalid));
+        when(priceClient.checkPriceByUrl(gone.getProductUrl())).thenThrow(new ProductNotFoundInStoreException("Not found"));
+        when(priceClient.checkPriceByUrl(invalid.getProductUrl())).thenThrow(new InvalidStoreUrlException("Invalid domain"));
+
+        // Act
+        BatchUpdateResult result = priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(gone.isParked()).isTrue();
+        assertThat(gone.getLastErrorClass()).isEqualTo("ProductNotFoundInStoreException");
+        assertThat(gone.getNextCheckAt()).isEqualTo(nextCheckAt);
+        assertThat(invalid.isParked()).isTrue();
+        verify(checkIntervalPolicy, never()).retryTime(anyInt(), any(LocalDateTime.class));
+        verify(metricsService).incrementProductParked("ProductNotFoundInStoreException");
+        verify(metricsService).incrementProductParked("InvalidStoreUrlException");
+    }
+
+    @Test
+    void shouldLeaseClaimedProducts_AndReleaseLeaseWhenApplyingResults() {
+        // Arrange
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(product), Collections.emptyList());
+        when(productRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            assertThat(product.getLeaseOwner()).isNotNull();
+            assertThat(product.getLeaseExpiresAt()).isAfter(LocalDateTime.now());
+            return List.of(product);
+        });
+        when(priceClient.checkPriceByUrl(anyString())).thenReturn(Optional.empty());
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(product.getLeaseOwner()).isNull();
+        assertThat(product.getLeaseExpiresAt()).isNull();
+        verify(productRepository).save(product);
+    }
+
+    @Test
+    void shouldDiscardResult_WhenLeaseWasTakenOverByAnotherWorker() {
+        // Arrange
+        ProductObservation claimed = createProduct(new BigDecimal("100.00"));
+        ProductObservation reloaded = createProduct(new BigDecimal("100.00"));
+        reloaded.acquireLease("another-worker", LocalDateTime.now().plusMinutes(5));
+
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(claimed), Collections.emptyList());
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(reloaded));
+        when(priceClient.checkPriceByUrl(anyString()))
+                .thenReturn(Optional.of(new PriceResponse("Name", new BigDecimal("50.00"), "PLN", claimed.getProductUrl())));
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(reloaded.getCurrentPrice()).isEqualTo(new BigDecimal("100.00"));
+        assertThat(reloaded.getLeaseOwner()).isEqualTo("another-worker");
+        verify(productRepository, never()).save(any(ProductObservation.class));
+        verifyNoInteractions(notificationOutbox);
+    }
+
+    @Test
+    void shouldAppendHistoryRowDirectly_WithoutTouchingHistoryCollection() {
+        // Arrange
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+        product.setPriceHistory(null); // any access to the collection would fail
+        BigDecimal newPrice = new BigDecimal("95.00");
+
+        givenProductsToUpdate(List.of(product));
+        when(priceClient.checkPriceByUrl(product.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("Name", newPrice, "PLN", product.getProductUrl())));
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        ArgumentCaptor<PriceHistory> historyCaptor = ArgumentCaptor.forClass(PriceHistory.class);
+        verify(priceHistoryRepository).save(historyCaptor.capture());
+
+        PriceHistory history = historyCaptor.getValue();
+        assertThat(history.getPrice()).isEqualTo(newPrice);
+        assertThat(history.getProductObservation()).isSameAs(product);
+        assertThat(product.getCurrentPrice()).isEqualTo(newPrice);
+        assertThat(product.getPriceHistory()).isNull();
+    }
+
+    @Test
+    void shouldNotNotify_WhenDropDoesNotReachTargetPrice() {
+        // Arrange
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+        product.setTargetPrice(new BigDecimal("80.00"));
+
+        givenProductsToUpdate(List.of(product));
+        when(priceClient.checkPriceByUrl(product.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("Name", new BigDecimal("90.00"), "PLN", product.getProductUrl())));
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        assertThat(product.getCurrentPrice()).isEqualTo(new BigDecimal("90.00"));
+        verify(notificationOutbox, never()).enqueue(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void shouldNotifyOnlyObserversWhoseThresholdWasCrossed_WhenUrlIsShared() {
+        // Arrange
+        ProductObservation anyDrop = createProduct(1L, new BigDecimal("100.00"));
+        ProductObservation bigDrop = createProduct(2L, new BigDecimal("100.00"));
+        anyDrop.setProductUrl("https://www.ceneo.pl/123");
+        bigDrop.setProductUrl("https://www.ceneo.pl/123");
+        bigDrop.setUserEmail("other@test.com");
+        bigDrop.setMinDropPercent(new BigDecimal("25"));
+
+        givenProductsToUpdate(List.of(anyDrop, bigDrop));
+        when(priceClient.checkPriceByUrl("https://www.ceneo.pl/123"))
+                .thenReturn(Optional.of(new PriceResponse("Shared", new BigDecimal("90.00"), "PLN", "https://www.ceneo.pl/123")));
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        verify(notificationOutbox).enqueue(eq("user@test.com"), anyString(), contains("dropped from 100.00 to 90.00"));
+        verify(notificationOutbox, never()).enqueue(eq("other@test.com"), anyString(), anyString());
+    }
+
+    @Test
+    void shouldWriteNotificationInApplyTransaction_AndRelayAfterTheRun() {
+        // Arrange
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+
+        givenProductsToUpdate(List.of(product));
+        when(priceClient.checkPriceByUrl(product.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("Name", new BigDecimal("90.00"), "PLN", product.getProductUrl())));
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        InOrder inOrder = inOrder(transactionManager, notificationOutbox, notificationOutboxRelay);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(transactionManager).getTransaction(any(TransactionDefinition.class));
+        inOrder.verify(notificationOutbox).enqueue(anyString(), anyString(), anyString());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(notificationOutboxRelay).relayPending();
+    }
+
+    @Test
+    void shouldFinishRun_WhenRelayingNotificationsFails() {
+        // Arrange
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+
+        givenProductsToUpdate(List.of(product));
+        when(priceClient.checkPriceByUrl(product.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("Name", new BigDecimal("90.00"), "PLN", product.getProductUrl())));
+        when(notificationOutboxRelay.relayPending()).thenThrow(new RuntimeException("Broker down"));
+
+        // Act
+        int count = priceUpdateService.updateOutdatedPrices().processed();
+
+        // Assert
+        assertThat(count).isEqualTo(1);
+        verify(notificationOutbox).enqueue(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void shouldOnlyConfirmPrice_WhenUnchangedAndHistoryStoresChangesOnly() {
+        // Arrange
+        properties.setHistoryMode(PriceUpdateProperties.HistoryMode.CHANGES_ONLY);
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+
+        givenProductsToUpdate(List.of(product));
+        when(priceClient.checkPriceByUrl(product.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("Name", new BigDecimal("100.0"), "PLN", product.getProductUrl())));
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        verify(priceHistoryRepository, never()).save(any(PriceHistory.class));
+        assertThat(product.getPriceConfirmedAt()).isNotNull();
+        assertThat(product.getCurrentPrice()).isEqualTo(new BigDecimal("100.00"));
+    }
+
+    @Test
+    void shouldWriteHistoryRow_WhenPriceChangedAndHistoryStoresChangesOnly() {
+        // Arrange
+        properties.setHistoryMode(PriceUpdateProperties.HistoryMode.CHANGES_ONLY);
+        ProductObservation product = createProduct(new BigDecimal("100.00"));
+
+        givenProductsToUpdate(List.of(product));
+        when(priceClient.checkPriceByUrl(product.getProductUrl()))
+                .thenReturn(Optional.of(new PriceResponse("Name", new BigDecimal("120.00"), "PLN", product.getProductUrl())));
+
+        // Act
+        priceUpdateService.updateOutdatedPrices();
+
+        // Assert
+        verify(priceHistoryRepository).save(any(PriceHistory.class));
+        assertThat(product.getCurrentPrice()).isEqualTo(new BigDecimal("120.00"));
+        assertThat(product.getPriceConfirmedAt()).isNotNull();
+    }
+
+    private void givenProductsToUpdate(List<ProductObservation> products) {
+        when(productRepository.findProductsToUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(products, Collections.emptyList());
+        when(productRepository.findAllById(anyIterable())).thenReturn(products);
     }
 
     private ProductObservation createProduct(BigDecimal currentPrice) {
+        return createProduct(1L, currentPrice);
+    }
+
+    private ProductObservation createProduct(Long id, BigDecimal currentPrice) {
         ProductObservation product = new ProductObservation();
-        product.setId(1L);
-        product.setProductUrl("http://test.com/product");
+        product.setId(id);
+        product.setProductUrl("http://test.com/product/" + id);
         product.setProductName("Old Name");
         product.setCurrentPrice(currentPrice);
         product.setUserEmail("user@test.com");
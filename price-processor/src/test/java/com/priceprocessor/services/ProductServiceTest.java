@@ -7,6 +7,7 @@ import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
 import com.priceprocessor.models.PriceHistory;
 import com.priceprocessor.models.ProductObservation;
 import com.priceprocessor.repositories.ProductRepository;
+import com.priceprocessor.scheduler.ProductScheduleChangedEvent;
 import com.priceprocessor.services.clients.PriceClient;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -40,6 +42,12 @@ class ProductServiceTest {
     @Mock
     private PriceClient priceClient;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CheckIntervalPolicy checkIntervalPolicy;
+
     @InjectMocks
     private ProductService productService;
 
@@ -80,6 +88,26 @@ class ProductServiceTest {
         assertThat(result.priceHistory().get(0).price()).isEqualTo(product.getCurrentPrice());
     }
 
+    @Test
+    void shouldCloseSeriesWithConfirmationPoint_WhenPriceWasConfirmedAfterLastChange() {
+        // Arrange
+        Long productId = 1L;
+        ProductObservation product = createProductObservation();
+        LocalDateTime confirmedAt = product.getPriceHistory().get(0).getCheckedAt().plusDays(3);
+        product.setPriceConfirmedAt(confirmedAt);
+
+        when(productRepository.findByIdAndUserEmail(productId, CURRENT_USER_EMAIL))
+                .thenReturn(Optional.of(product));
+
+        // Act
+        ProductDetailsResponse result = productService.getProductDetails(productId);
+
+        // Assert
+        assertThat(result.priceHistory()).hasSize(2);
+        assertThat(result.priceHistory().get(1).price()).isEqualTo(product.getCurrentPrice());
+        assertThat(result.priceHistory().get(1).checkedAt()).isEqualTo(confirmedAt);
+    }
+
     @Test
     void shouldThrowException_WhenProductNotFoundOrAccessDenied() {
         // Arrange
@@ -100,7 +128,10 @@ class ProductServiceTest {
         ProductObservationByNameRequest request = new ProductObservationByNameRequest(productName);
         PriceResponse priceResponse = new PriceResponse("iPhone 15 Pro", new BigDecimal("5000"), "PLN", "http://ceneo.pl/123");
 
+        LocalDateTime firstCheckAt = LocalDateTime.now().plusHours(24);
+
         when(priceClient.checkPriceByName(productName)).thenReturn(Optional.of(priceResponse));
+        when(checkIntervalPolicy.firstCheckTime(any(LocalDateTime.class))).thenReturn(firstCheckAt);
 
         when(productRepository.save(any(ProductObservation.class))).thenAnswer(invocation -> {
             ProductObservation p = invocation.getArgument(0);
@@ -119,7 +150,9 @@ class ProductServiceTest {
         assertThat(savedProduct.getUserEmail()).isEqualTo(CURRENT_USER_EMAIL);
         assertThat(savedProduct.getProductName()).isEqualTo("iPhone 15 Pro");
         assertThat(savedProduct.getCurrentPrice()).isEqualTo(new BigDecimal("5000"));
+        assertThat(savedProduct.getNextCheckAt()).isEqualTo(firstCheckAt);
         assertThat(result.productName()).isEqualTo("iPhone 15 Pro");
+        verify(eventPublisher).publishEvent(ProductScheduleChangedEvent.scheduled(1L, firstCheckAt));
     }
 
     @Test
@@ -196,6 +229,7 @@ class ProductServiceTest {
 
         // Assert
         verify(productRepository).delete(product);
+        verify(eventPublisher).publishEvent(ProductScheduleChangedEvent.removed(productId));
     }
 
     @Test
@@ -212,6 +246,37 @@ class ProductServiceTest {
         verify(productRepository, never()).delete(any());
     }
 
+    @Test
+    void shouldUpdateAlertRule_WhenProductBelongsToUser() {
+        // Arrange
+        Long productId = 1L;
+        ProductObservation product = createProductObservation();
+        PriceAlertRule rule = new PriceAlertRule(new BigDecimal("90.00"), new BigDecimal("15"));
+
+        when(productRepository.findByIdAndUserEmail(productId, CURRENT_USER_EMAIL))
+                .thenReturn(Optional.of(product));
+
+        // Act
+        PriceAlertRule result = productService.updateAlertRule(productId, rule);
+
+        // Assert
+        assertThat(result).isEqualTo(rule);
+        assertThat(product.getTargetPrice()).isEqualTo(new BigDecimal("90.00"));
+        assertThat(product.getMinDropPercent()).isEqualTo(new BigDecimal("15"));
+    }
+
+    @Test
+    void shouldThrowException_WhenUpdatingAlertRuleOfForeignProduct() {
+        // Arrange
+        Long productId = 1L;
+        when(productRepository.findByIdAndUserEmail(productId, CURRENT_USER_EMAIL))
+                .thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> productService.updateAlertRule(productId, new PriceAlertRule(BigDecimal.TEN, null)))
+                .isInstanceOf(ProductNotFoundException.class);
+    }
+
     private ProductObservation createProductObservation() {
         ProductObservation p = new ProductObservation();
         p.setId(1L);
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.priceprocessor.config.ScraperProperties;
 import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.dtos.crawler.ScraperBatchItem;
+import com.priceprocessor.dtos.crawler.ScraperBatchRequest;
 import com.priceprocessor.dtos.crawler.ScraperSearchRequest;
 import com.priceprocessor.dtos.crawler.ScraperUrlRequest;
 import com.priceprocessor.dtos.errors.ScraperErrorCode;
@@ -11,29 +13,60 @@ import com.priceprocessor.dtos.errors.ScraperErrorResponse;
 import com.priceprocessor.exceptions.PriceFetchException;
 import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
 import com.priceprocessor.exceptions.crawler.InvalidStoreUrlException;
+import com.priceprocessor.exceptions.crawler.RateLimitExceededException;
 import com.priceprocessor.exceptions.crawler.ScraperException;
+import com.priceprocessor.exceptions.crawler.ScraperUnavailableException;
 import com.priceprocessor.services.MetricsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,24 +76,39 @@ class CeneoPriceClientTest {
     private RestTemplate restTemplate;
     @Mock
     private MetricsService metricsService;
+    @Mock
+    private StoreRateLimiter storeRateLimiter;
+    @Mock
+    private ScraperCircuitBreaker scraperCircuitBreaker;
+    @Mock
+    private HttpClient scraperAsyncHttpClient;
+    @Mock
+    private HttpResponse<String> httpResponse;
 
     private CeneoPriceClient ceneoPriceClient;
+    private ScraperProperties properties;
+    private ScraperRequestCoalescer requestCoalescer;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final String BASE_URL = "http://scraper-api";
     private static final String SEARCH_PATH = "/find_price";
     private static final String DIRECT_PATH = "/scrape_direct_url";
+    private static final String BATCH_PATH = "/scrape_urls";
 
     @BeforeEach
     void setUp() {
-        ScraperProperties properties = new ScraperProperties();
+        properties = new ScraperProperties();
         properties.setBaseUrl(BASE_URL);
 
         ScraperProperties.Paths paths = new ScraperProperties.Paths();
         paths.setSearch(SEARCH_PATH);
         paths.setDirect(DIRECT_PATH);
+        paths.setBatch(BATCH_PATH);
         properties.setPaths(paths);
 
-        ceneoPriceClient = new CeneoPriceClient(restTemplate, objectMapper, properties, metricsService);
+        SearchResultCache searchResultCache = new SearchResultCache(properties.getSearchCache(), metricsService, System::nanoTime);
+        requestCoalescer = new ScraperRequestCoalescer(metricsService, Duration.ofSeconds(5));
+        ceneoPriceClient = new CeneoPriceClient(restTemplate, objectMapper, properties, metricsService, storeRateLimiter, scraperCircuitBreaker,
+                searchResultCache, requestCoalescer, new ScraperErrorTranslator(objectMapper, metricsService), scraperAsyncHttpClient);
     }
 
     @Test
@@ -81,6 +129,23 @@ class CeneoPriceClientTest {
         assertThat(result).contains(mockResponse);
     }
 
+    @Test
+    void shouldAnswerRepeatedSearchFromCache_WithoutCallingScraperAgain() {
+        // Arrange
+        PriceResponse mockResponse = new PriceResponse("Iphone 15", BigDecimal.TEN, "PLN", "url");
+        when(restTemplate.postForEntity(eq(BASE_URL + SEARCH_PATH), any(ScraperSearchRequest.class), eq(PriceResponse.class)))
+                .thenReturn(ResponseEntity.ok(mockResponse));
+
+        // Act
+        ceneoPriceClient.checkPriceByName("Iphone 15 128GB");
+        Optional<PriceResponse> result = ceneoPriceClient.checkPriceByName("  iphone 15   128gb ");
+
+        // Assert
+        assertThat(result).contains(mockResponse);
+        verify(restTemplate, times(1)).postForEntity(anyString(), any(), eq(PriceResponse.class));
+        verify(storeRateLimiter, times(1)).acquireForSearch();
+    }
+
     @Test
     void shouldThrowException_WhenSearchingByNameAndConnectionFails() {
         String productName = "Iphone 15";
@@ -225,4 +290,422 @@ class CeneoPriceClientTest {
         // Assert
         assertThat(result).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldAcquireRateLimitPermitForStoreDomain_BeforeCallingScraper() {
+        // Arrange
+        String productUrl = "https://www.ceneo.pl/12345";
+        when(restTemplate.postForEntity(eq(BASE_URL + DIRECT_PATH), any(ScraperUrlRequest.class), eq(PriceResponse.class)))
+                .thenReturn(ResponseEntity.ok(new PriceResponse("Item", BigDecimal.ONE, "PLN", productUrl)));
+
+        // Act
+        ceneoPriceClient.checkPriceByUrl(productUrl);
+
+        // Assert
+        InOrder inOrder = inOrder(storeRateLimiter, restTemplate);
+        inOrder.verify(storeRateLimiter).acquireForUrl(productUrl);
+        inOrder.verify(restTemplate).postForEntity(eq(BASE_URL + DIRECT_PATH), any(ScraperUrlRequest.class), eq(PriceResponse.class));
+    }
+
+    @Test
+    void shouldNotCallScraper_WhenRateLimitRejectsCall() {
+        // Arrange
+        doThrow(new RateLimitExceededException("Rate limit for ceneo.pl exceeded"))
+                .when(storeRateLimiter).acquireForSearch();
+
+        // Act & Assert
+        assertThatThrownBy(() -> ceneoPriceClient.checkPriceByName("Iphone 15"))
+                .isInstanceOf(RateLimitExceededException.class);
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void shouldFailFastWithoutCallingScraper_WhenCircuitIsOpen() {
+        // Arrange
+        doThrow(new ScraperUnavailableException("Scraper circuit is open")).when(scraperCircuitBreaker).acquirePermission();
+
+        // Act & Assert
+        assertThatThrownBy(() -> ceneoPriceClient.checkPriceByUrl("https://www.ceneo.pl/1"))
+                .isInstanceOf(ScraperUnavailableException.class);
+        verifyNoInteractions(storeRateLimiter, restTemplate);
+    }
+
+    @Test
+    void shouldRecordFailureInCircuitBreaker_WhenScraperIsUnreachable() {
+        // Arrange
+        when(restTemplate.postForEntity(eq(BASE_URL + DIRECT_PATH), any(ScraperUrlRequest.class), eq(PriceResponse.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> ceneoPriceClient.checkPriceByUrl("https://www.ceneo.pl/1"))
+                .isInstanceOf(PriceFetchException.class);
+        verify(scraperCircuitBreaker).onFailure(anyLong());
+        verify(scraperCircuitBreaker, never()).onSuccess(anyLong());
+    }
+
+    @Test
+    void shouldRecordSuccessInCircuitBreaker_WhenProductIsNotFoundInStore() throws JsonProcessingException {
+        // Arrange
+        ScraperErrorResponse errorResponse = new ScraperErrorResponse(ScraperErrorCode.PRODUCT_NOT_FOUND, "Not found");
+        String jsonError = objectMapper.writeValueAsString(errorResponse);
+
+        HttpClientErrorException exception = HttpClientErrorException.create(
+                HttpStatus.NOT_FOUND,
+                "Not Found",
+                HttpHeaders.EMPTY,
+                jsonError.getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8
+        );
+        when(restTemplate.postForEntity(eq(BASE_URL + DIRECT_PATH), any(ScraperUrlRequest.class), eq(PriceResponse.class)))
+                .thenThrow(exception);
+
+        // Act & Assert
+        assertThatThrownBy(() -> ceneoPriceClient.checkPriceByUrl("https://www.ceneo.pl/1"))
+                .isInstanceOf(ProductNotFoundInStoreException.class);
+        verify(scraperCircuitBreaker).onSuccess(anyLong());
+    }
+
+    @Test
+    void shouldReleaseCircuitPermission_WhenRateLimitRejectsCall() {
+        // Arrange
+        doThrow(new RateLimitExceededException("Rate limit for ceneo.pl exceeded")).when(storeRateLimiter).acquireForUrl(anyString());
+
+        // Act & Assert
+        assertThatThrownBy(() -> ceneoPriceClient.checkPriceByUrl("https://www.ceneo.pl/1"))
+                .isInstanceOf(RateLimitExceededException.class);
+        verify(scraperCircuitBreaker).releasePermission();
+        verify(scraperCircuitBreaker, never()).onFailure(anyLong());
+    }
+
+    @Test
+    void shouldPassOnPerUrlResults_WhenCheckingPricesInBatch() throws JsonProcessingException {
+        // Arrange
+        String found = "https://www.ceneo.pl/1";
+        String gone = "https://www.ceneo.pl/2";
+        PriceResponse price = new PriceResponse("Iphone 15", BigDecimal.TEN, "PLN", found);
+        givenAsyncPermit();
+        givenBatchResponse(
+                successLine(found, price),
+                objectMapper.writeValueAsString(new ScraperBatchItem(gone, 404, null,
+                        new ScraperErrorResponse(ScraperErrorCode.PRODUCT_NOT_FOUND, "Not found"))));
+
+        // Act
+        Map<String, UrlPriceResult> results = checkInBatch(List.of(found, gone));
+
+        // Assert
+        assertThat(results.get(found).response()).contains(price);
+        assertThat(results.get(gone).error()).isInstanceOf(ProductNotFoundInStoreException.class);
+        verify(storeRateLimiter).acquireForUrlAsync(found);
+        verify(storeRateLimiter).acquireForUrlAsync(gone);
+        verify(scraperCircuitBreaker).acquirePermission();
+        verify(scraperCircuitBreaker).onSuccess(anyLong());
+        verify(metricsService).incrementScraperError("PRODUCT_NOT_FOUND");
+    }
+
+    @Test
+    void shouldFailUrlsMissingFromStream_WhenBatchEndsEarly() throws JsonProcessingException {
+        // Arrange
+        String answered = "https://www.ceneo.pl/1";
+        String unanswered = "https://www.ceneo.pl/2";
+        givenAsyncPermit();
+        givenBatchResponse(successLine(answered, new PriceResponse("Iphone 15", BigDecimal.TEN, "PLN", answered)));
+
+        // Act
+        Map<String, UrlPriceResult> results = checkInBatch(List.of(answered, unanswered));
+
+        // Assert
+        assertThat(results.get(answered).error()).isNull();
+        assertThat(results.get(unanswered).error()).isInstanceOf(PriceFetchException.class);
+    }
+
+    @Test
+    void shouldFailRemainingUrls_AndRecordCircuitFailure_WhenBatchConnectionFails() {
+        // Arrange
+        givenAsyncPermit();
+        when(restTemplate.execute(eq(URI.create(BASE_URL + BATCH_PATH)), eq(HttpMethod.POST), any(), any()))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        // Act
+        Map<String, UrlPriceResult> results = checkInBatch(List.of("https://www.ceneo.pl/1", "https://www.ceneo.pl/2"));
+
+        // Assert
+        assertThat(results.values()).allSatisfy(result -> assertThat(result.error())
+                .isInstanceOf(PriceFetchException.class)
+                .hasMessageContaining("network error"));
+        verify(scraperCircuitBreaker).onFailure(anyLong());
+    }
+
+    @Test
+    void shouldSplitUrlsIntoRequestsOfMaxBatchSize() throws JsonProcessingException {
+        // Arrange
+        properties.setMaxBatchSize(2);
+        List<String> urls = List.of("https://www.ceneo.pl/1", "https://www.ceneo.pl/2", "https://www.ceneo.pl/3");
+        List<String> lines = new ArrayList<>();
+        for (String url : urls) {
+            lines.add(successLine(url, new PriceResponse("Item", BigDecimal.ONE, "PLN", url)));
+        }
+        givenAsyncPermit();
+        givenBatchResponse(lines.toArray(String[]::new));
+
+        // Act
+        Map<String, UrlPriceResult> results = checkInBatch(urls);
+
+        // Assert
+        assertThat(results).hasSize(3);
+        assertThat(results.values()).allSatisfy(result -> assertThat(result.error()).isNull());
+        verify(restTemplate, times(2)).execute(eq(URI.create(BASE_URL + BATCH_PATH)), eq(HttpMethod.POST), any(), any());
+    }
+
+    @Test
+    void shouldLeaveUrlOutOfBatch_WhenRateLimitRejectsIt() throws JsonProcessingException {
+        // Arrange
+        String allowed = "https://www.ceneo.pl/1";
+        String limited = "https://www.ceneo.pl/2";
+        when(storeRateLimiter.acquireForUrlAsync(allowed)).thenReturn(CompletableFuture.completedFuture(null));
+        when(storeRateLimiter.acquireForUrlAsync(limited))
+                .thenReturn(CompletableFuture.failedFuture(new RateLimitExceededException("Rate limit for ceneo.pl exceeded")));
+        givenBatchResponse(successLine(allowed, new PriceResponse("Item", BigDecimal.ONE, "PLN", allowed)));
+
+        // Act
+        Map<String, UrlPriceResult> results = checkInBatch(List.of(allowed, limited));
+
+        // Assert
+        assertThat(results.get(allowed).error()).isNull();
+        assertThat(results.get(limited).error()).isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void shouldSendUrlsWithDuePermits_BeforeWaitingForTheNextPermit() throws JsonProcessingException {
+        // Arrange
+        List<String> urls = List.of("https://www.ceneo.pl/1", "https://www.ceneo.pl/2", "https://www.ceneo.pl/3");
+        CompletableFuture<Void> laterPermit = new CompletableFuture<>();
+        when(storeRateLimiter.acquireForUrlAsync(anyString())).thenAnswer(invocation ->
+                urls.get(2).equals(invocation.getArgument(0)) ? laterPermit : CompletableFuture.completedFuture(null));
+        List<List<String>> sentBatches = new ArrayList<>();
+        when(restTemplate.httpEntityCallback(any())).thenAnswer(invocation -> {
+            HttpEntity<ScraperBatchRequest> request = invocation.getArgument(0);
+            sentBatches.add(request.getBody().urls());
+            // The third permit only becomes due once the first wave is out
+            laterPermit.complete(null);
+            return null;
+        });
+        List<String> lines = new ArrayList<>();
+        for (String url : urls) {
+            lines.add(successLine(url, new PriceResponse("Item", BigDecimal.ONE, "PLN", url)));
+        }
+        givenBatchResponse(lines.toArray(String[]::new));
+
+        // Act
+        Map<String, UrlPriceResult> results = checkInBatch(urls);
+
+        // Assert
+        assertThat(results.values()).allSatisfy(result -> assertThat(result.error()).isNull());
+        assertThat(sentBatches).containsExactly(urls.subList(0, 2), urls.subList(2, 3));
+        verify(scraperCircuitBreaker, times(2)).acquirePermission();
+        verify(scraperCircuitBreaker, times(2)).onSuccess(anyLong());
+    }
+
+    @Test
+    void shouldReportEveryUrlAsUnavailable_WithoutCallingScraper_WhenCircuitIsOpen() {
+        // Arrange
+        doThrow(new ScraperUnavailableException("Scraper circuit is open")).when(scraperCircuitBreaker).acquirePermission();
+
+        // Act
+        Map<String, UrlPriceResult> results = checkInBatch(List.of("https://www.ceneo.pl/1", "https://www.ceneo.pl/2"));
+
+        // Assert
+        assertThat(results.values()).allSatisfy(result -> assertThat(result.error()).isInstanceOf(ScraperUnavailableException.class));
+        verifyNoInteractions(storeRateLimiter, restTemplate);
+    }
+
+    @Test
+    void shouldFallBackToSingleCalls_WhenScraperHasNoBatchEndpoint() {
+        // Arrange
+        String url = "https://www.ceneo.pl/1";
+        PriceResponse price = new PriceResponse("Iphone 15", BigDecimal.TEN, "PLN", url);
+        givenAsyncPermit();
+        when(restTemplate.execute(eq(URI.create(BASE_URL + BATCH_PATH)), eq(HttpMethod.POST), any(), any()))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8));
+        when(restTemplate.postForEntity(eq(BASE_URL + DIRECT_PATH), any(ScraperUrlRequest.class), eq(PriceResponse.class)))
+                .thenReturn(ResponseEntity.ok(price));
+
+        // Act
+        Map<String, UrlPriceResult> results = checkInBatch(List.of(url));
+
+        // Assert
+        assertThat(results.get(url).response()).contains(price);
+        assertThat(ceneoPriceClient.supportsBatch()).isFalse();
+        verify(storeRateLimiter, times(1)).acquireForUrlAsync(url);
+        verify(storeRateLimiter, never()).acquireForUrl(anyString());
+        verify(scraperCircuitBreaker).releasePermission();
+    }
+
+    @Test
+    void shouldNotSupportBatch_WhenBatchPathIsNotConfigured() {
+        // Arrange
+        properties.getPaths().setBatch(null);
+
+        // Act & Assert
+        assertThat(ceneoPriceClient.supportsBatch()).isFalse();
+    }
+
+    @Test
+    void shouldCallScraperOnce_WhenSameUrlIsRequestedConcurrently() throws Exception {
+        // Arrange
+        String url = "https://www.ceneo.pl/1";
+        PriceResponse price = new PriceResponse("Iphone 15", BigDecimal.TEN, "PLN", url);
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.postForEntity(eq(BASE_URL + DIRECT_PATH), any(ScraperUrlRequest.class), eq(PriceResponse.class)))
+                .thenAnswer(invocation -> {
+                    callStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return ResponseEntity.ok(price);
+                });
+
+        // Act
+        CompletableFuture<Optional<PriceResponse>> first = CompletableFuture.supplyAsync(() -> ceneoPriceClient.checkPriceByUrl(url));
+        assertThat(callStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Optional<PriceResponse>> second = CompletableFuture.supplyAsync(() -> ceneoPriceClient.checkPriceByUrl(url + "?utm_source=mail"));
+        verify(metricsService, timeout(5000)).incrementScraperRequestCoalescing(true);
+        release.countDown();
+
+        // Assert
+        assertThat(first.get(5, TimeUnit.SECONDS)).contains(price);
+        assertThat(second.get(5, TimeUnit.SECONDS)).contains(price);
+        verify(restTemplate, times(1)).postForEntity(anyString(), any(), eq(PriceResponse.class));
+    }
+
+    @Test
+    void shouldLeaveUrlInFlightOutOfBatch_AndShareItsResult() throws Exception {
+        // Arrange
+        String inFlight = "https://www.ceneo.pl/1";
+        String other = "https://www.ceneo.pl/2";
+        PriceResponse inFlightPrice = new PriceResponse("Iphone 15", BigDecimal.TEN, "PLN", inFlight);
+        ScraperRequestCoalescer.Flight userRequest = requestCoalescer.start(ScraperRequestCoalescer.urlKey(inFlight));
+        givenAsyncPermit();
+        givenBatchResponse(successLine(other, new PriceResponse("Item", BigDecimal.ONE, "PLN", other)));
+
+        // Act
+        CompletableFuture<Map<String, UrlPriceResult>> batch = CompletableFuture.supplyAsync(() -> checkInBatch(List.of(inFlight, other)));
+        verify(metricsService, timeout(5000)).incrementScraperRequestCoalescing(true);
+        userRequest.succeed(Optional.of(inFlightPrice));
+        Map<String, UrlPriceResult> results = batch.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(results.get(inFlight).response()).contains(inFlightPrice);
+        assertThat(results.get(other).error()).isNull();
+        ArgumentCaptor<HttpEntity<ScraperBatchRequest>> request = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).httpEntityCallback(request.capture());
+        assertThat(request.getValue().getBody().urls()).containsExactly(other);
+        verify(storeRateLimiter, never()).acquireForUrlAsync(inFlight);
+    }
+
+    @Test
+    void shouldReturnPriceResponse_WhenCheckingUrlAsynchronously() throws Exception {
+        // Arrange
+        String url = "https://www.ceneo.pl/1";
+        PriceResponse price = new PriceResponse("Iphone 15", BigDecimal.TEN, "PLN", url);
+        givenAsyncPermit();
+        givenAsyncResponse(200, objectMapper.writeValueAsString(price));
+
+        // Act
+        Optional<PriceResponse> result = ceneoPriceClient.checkPriceByUrlAsync(url).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(result).contains(price);
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(scraperAsyncHttpClient).sendAsync(request.capture(), any());
+        assertThat(request.getValue().uri()).isEqualTo(URI.create(BASE_URL + DIRECT_PATH));
+        verify(storeRateLimiter).acquireForUrlAsync(url);
+        verify(scraperCircuitBreaker).onSuccess(anyLong());
+    }
+
+    @Test
+    void shouldTranslateScraperErrorLikeBlockingClient_WhenCheckingUrlAsynchronously() throws Exception {
+        // Arrange
+        givenAsyncPermit();
+        givenAsyncResponse(404, objectMapper.writeValueAsString(new ScraperErrorResponse(ScraperErrorCode.PRODUCT_NOT_FOUND, "Not found")));
+
+        // Act & Assert
+        assertThatThrownBy(() -> ceneoPriceClient.checkPriceByUrlAsync("https://www.ceneo.pl/1").get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ProductNotFoundInStoreException.class);
+        verify(metricsService).incrementScraperError("PRODUCT_NOT_FOUND");
+        verify(scraperCircuitBreaker).onSuccess(anyLong());
+    }
+
+    @Test
+    void shouldFailWithNetworkError_AndRecordCircuitFailure_WhenAsyncRequestTimesOut() {
+        // Arrange
+        givenAsyncPermit();
+        when(scraperAsyncHttpClient.<String>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new HttpTimeoutException("request timed out")));
+
+        // Act & Assert
+        assertThatThrownBy(() -> ceneoPriceClient.checkPriceByUrlAsync("https://www.ceneo.pl/1").get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(PriceFetchException.class)
+                .hasMessageContaining("network error");
+        verify(scraperCircuitBreaker).onFailure(anyLong());
+    }
+
+    @Test
+    void shouldFailAsyncCallWithoutSending_WhenCircuitIsOpen() {
+        // Arrange
+        doThrow(new ScraperUnavailableException("Scraper circuit is open")).when(scraperCircuitBreaker).acquirePermission();
+
+        // Act
+        CompletableFuture<Optional<PriceResponse>> result = ceneoPriceClient.checkPriceByUrlAsync("https://www.ceneo.pl/1");
+
+        // Assert
+        assertThat(result).isCompletedExceptionally();
+        assertThat(PriceClient.causeOf(result.handle((response, error) -> error).join())).isInstanceOf(ScraperUnavailableException.class);
+        verifyNoInteractions(storeRateLimiter, scraperAsyncHttpClient);
+    }
+
+    @Test
+    void shouldReleaseCircuitPermission_WhenAsyncRateLimitRejectsCall() {
+        // Arrange
+        when(storeRateLimiter.acquireForUrlAsync(anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RateLimitExceededException("Rate limit for ceneo.pl exceeded")));
+
+        // Act
+        CompletableFuture<Optional<PriceResponse>> result = ceneoPriceClient.checkPriceByUrlAsync("https://www.ceneo.pl/1");
+
+        // Assert
+        assertThat(result).isCompletedExceptionally();
+        verify(scraperCircuitBreaker).releasePermission();
+        verifyNoInteractions(scraperAsyncHttpClient);
+    }
+
+    private Map<String, UrlPriceResult> checkInBatch(List<String> urls) {
+        List<UrlPriceResult> results = new ArrayList<>();
+        ceneoPriceClient.checkPricesByUrls(urls, results::add);
+        assertThat(results).hasSize(urls.size());
+        return results.stream().collect(Collectors.toMap(UrlPriceResult::url, Function.identity()));
+    }
+
+    private void givenBatchResponse(String... lines) {
+        when(restTemplate.execute(eq(URI.create(BASE_URL + BATCH_PATH)), eq(HttpMethod.POST), any(), any()))
+                .thenAnswer(invocation -> {
+                    ResponseExtractor<?> extractor = invocation.getArgument(3);
+                    byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+                    return extractor.extractData(new MockClientHttpResponse(body, HttpStatus.OK));
+                });
+    }
+
+    private String successLine(String url, PriceResponse price) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(new ScraperBatchItem(url, 200, price, null));
+    }
+
+    private void givenAsyncPermit() {
+        when(storeRateLimiter.acquireForUrlAsync(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private void givenAsyncResponse(int status, String body) {
+        when(httpResponse.statusCode()).thenReturn(status);
+        when(httpResponse.body()).thenReturn(body);
+        when(scraperAsyncHttpClient.<String>sendAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(httpResponse));
+    }
+}
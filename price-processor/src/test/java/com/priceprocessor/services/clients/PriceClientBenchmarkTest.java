@@ -0,0 +1,201 @@
+package com.priceprocessor.services.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.priceprocessor.config.PriceUpdateProperties;
+import com.priceprocessor.config.ScraperHttpClientConfig;
+import com.priceprocessor.config.ScraperProperties;
+import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.services.MetricsService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the blocking and the non-blocking scraper client against a local stub scraper with a fixed latency
+ * at 1, 16 and 256 concurrent calls. The blocking client needs one thread per concurrent call, the non-blocking
+ * one keeps the same number of calls in flight on {@code scraper.api.http.async-threads} threads.
+ * Timing-sensitive, so it is left out of {@code mvn test}; run it with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@Slf4j
+class PriceClientBenchmarkTest {
+
+    private static final Duration SCRAPER_LATENCY = Duration.ofMillis(20);
+    private static final int ASYNC_THREADS = 2;
+    private static final String PRICE_JSON =
+            "{\"found_product_name\":\"Iphone 15\",\"price\":3999.00,\"currency\":\"PLN\",\"ceneo_url\":\"https://www.ceneo.pl/1\"}";
+
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger peakConcurrentRequests = new AtomicInteger();
+
+    private HttpServer stubScraper;
+    private CloseableHttpClient blockingHttpClient;
+    private ExecutorService asyncExecutor;
+    private CeneoPriceClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubScraper = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        stubScraper.createContext("/scrape_direct_url", this::respondAfterLatency);
+        stubScraper.setExecutor(Executors.newCachedThreadPool());
+        stubScraper.start();
+
+        ScraperProperties scraperProperties = new ScraperProperties();
+        scraperProperties.setBaseUrl("http://127.0.0.1:" + stubScraper.getAddress().getPort());
+        ScraperProperties.Paths paths = new ScraperProperties.Paths();
+        paths.setSearch("/find_price");
+        paths.setDirect("/scrape_direct_url");
+        scraperProperties.setPaths(paths);
+        scraperProperties.getHttp().setMaxConnections(256);
+        scraperProperties.getHttp().setAsyncThreads(ASYNC_THREADS);
+        scraperProperties.getRateLimit().getDefaultLimit().setPermitsPerSecond(1_000_000);
+        scraperProperties.getRateLimit().getDefaultLimit().setBurst(1_000_000);
+
+        ScraperHttpClientConfig httpConfig = new ScraperHttpClientConfig();
+        blockingHttpClient = httpConfig.scraperHttpClient(
+                httpConfig.scraperConnectionManager(scraperProperties, new PriceUpdateProperties()), scraperProperties);
+        asyncExecutor = httpConfig.scraperAsyncExecutor(scraperProperties);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+        client = new CeneoPriceClient(
+                httpConfig.restTemplate(blockingHttpClient), objectMapper, scraperProperties, metricsService,
+                new StoreRateLimiter(scraperProperties, metricsService),
+                new ScraperCircuitBreaker(scraperProperties, metricsService),
+                new SearchResultCache(scraperProperties, metricsService),
+                new ScraperRequestCoalescer(scraperProperties, metricsService),
+                new ScraperErrorTranslator(objectMapper, metricsService),
+                httpConfig.scraperAsyncHttpClient(scraperProperties, asyncExecutor));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        blockingHttpClient.close();
+        asyncExecutor.shutdownNow();
+        stubScraper.stop(0);
+        ((ExecutorService) stubScraper.getExecutor()).shutdownNow();
+    }
+
+    @Test
+    void shouldKeepAsManyCallsInFlight_AsBlockingClientWithOneThreadPerCall() throws Exception {
+        List<String> report = new ArrayList<>();
+        List<Double> asyncCallsPerSecond = new ArrayList<>();
+
+        for (int concurrency : new int[]{1, 16, 256}) {
+            int calls = Math.max(64, concurrency * 4);
+
+            Run blocking = runBlocking(concurrency, calls);
+            Run async = runAsync(concurrency, calls);
+
+            report.add(String.format("concurrency %3d: blocking %7.1f calls/s on %3d threads, peak %3d in flight | "
+                            + "non-blocking %7.1f calls/s on %d threads, peak %3d in flight",
+                    concurrency, blocking.callsPerSecond(calls), concurrency, blocking.peakInFlight(),
+                    async.callsPerSecond(calls), ASYNC_THREADS, async.peakInFlight()));
+
+            assertThat(blocking.succeeded()).isEqualTo(calls);
+            assertThat(async.succeeded()).isEqualTo(calls);
+            // Both reach the requested concurrency; only the blocking client pays a thread for every call in flight
+            assertThat(async.peakInFlight()).isGreaterThanOrEqualTo(blocking.peakInFlight() * 3 / 4);
+            assertThat(async.callsPerSecond(calls)).isGreaterThanOrEqualTo(blocking.callsPerSecond(calls) / 2);
+            asyncCallsPerSecond.add(async.callsPerSecond(calls));
+        }
+
+        report.forEach(log::info);
+        // On the same two threads, 256 calls in flight get through far more than one at a time
+        assertThat(asyncCallsPerSecond.get(2)).isGreaterThanOrEqualTo(asyncCallsPerSecond.get(0) * 8);
+    }
+
+    private Run runBlocking(int concurrency, int calls) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+        try {
+            resetPeak();
+            long startedAt = System.nanoTime();
+            List<CompletableFuture<Optional<PriceResponse>>> results = new ArrayList<>();
+            for (int i = 0; i < calls; i++) {
+                String url = productUrl("blocking", concurrency, i);
+                results.add(CompletableFuture.supplyAsync(() -> client.checkPriceByUrl(url), callers));
+            }
+            return finish(results, startedAt);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private Run runAsync(int concurrency, int calls) {
+        Semaphore slots = new Semaphore(concurrency);
+        resetPeak();
+        long startedAt = System.nanoTime();
+        List<CompletableFuture<Optional<PriceResponse>>> results = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            slots.acquireUninterruptibly();
+            CompletableFuture<Optional<PriceResponse>> result = client.checkPriceByUrlAsync(productUrl("async", concurrency, i));
+            result.whenComplete((response, error) -> slots.release());
+            results.add(result);
+        }
+        return finish(results, startedAt);
+    }
+
+    private Run finish(List<CompletableFuture<Optional<PriceResponse>>> results, long startedAt) {
+        long succeeded = results.stream().map(CompletableFuture::join).filter(Optional::isPresent).count();
+        return new Run(Duration.ofNanos(System.nanoTime() - startedAt), (int) succeeded, peakConcurrentRequests.get());
+    }
+
+    // Distinct URLs, so calls are not coalesced into one another
+    private String productUrl(String mode, int concurrency, int call) {
+        return "https://www.ceneo.pl/" + mode + "-" + concurrency + "-" + call;
+    }
+
+    private void resetPeak() {
+        peakConcurrentRequests.set(0);
+    }
+
+    private void respondAfterLatency(HttpExchange exchange) throws IOException {
+        peakConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+        try {
+            exchange.getRequestBody().readAllBytes();
+            Thread.sleep(SCRAPER_LATENCY.toMillis());
+            byte[] body = PRICE_JSON.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            // The JDK server silently drops idle connections beyond its limit of 200, which a client would
+            // then try to reuse at 256 concurrent calls; closing each one keeps both clients on fresh connections
+            exchange.getResponseHeaders().add("Connection", "close");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrentRequests.decrementAndGet();
+        }
+    }
+
+    private record Run(Duration elapsed, int succeeded, int peakInFlight) {
+
+        double callsPerSecond(int calls) {
+            return calls * 1000.0 / Math.max(elapsed.toMillis(), 1);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.priceprocessor.services.clients;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductUrlCanonicalizerTest {
+
+    @Test
+    void shouldStripTrackingParamsAndFragment_AndSortRemainingParams() {
+        String url = "https://www.ceneo.pl/12345;0280-0.htm?utm_source=x&b=2&gclid=abc&a=1#tab=reviews";
+
+        assertThat(ProductUrlCanonicalizer.canonicalize(url)).isEqualTo("https://www.ceneo.pl/12345;0280-0.htm?a=1&b=2");
+    }
+
+    @Test
+    void shouldLowerCaseSchemeAndHost_AndDropDefaultPortAndTrailingSlash() {
+        assertThat(ProductUrlCanonicalizer.canonicalize("HTTPS://WWW.Ceneo.PL:443/123/"))
+                .isEqualTo("https://www.ceneo.pl/123");
+    }
+
+    @Test
+    void shouldAddHttpsScheme_WhenMissing() {
+        assertThat(ProductUrlCanonicalizer.canonicalize("ceneo.pl/123")).isEqualTo("https://ceneo.pl/123");
+    }
+
+    @Test
+    void shouldKeepUrlUnchanged_WhenAlreadyCanonical() {
+        String url = "http://ceneo.pl/abc";
+
+        assertThat(ProductUrlCanonicalizer.canonicalize(url)).isEqualTo(url);
+    }
+
+    @Test
+    void shouldReturnInput_WhenUrlCannotBeParsed() {
+        assertThat(ProductUrlCanonicalizer.canonicalize("https://ceneo.pl/a b")).isEqualTo("https://ceneo.pl/a b");
+        assertThat(ProductUrlCanonicalizer.canonicalize(null)).isNull();
+    }
+}
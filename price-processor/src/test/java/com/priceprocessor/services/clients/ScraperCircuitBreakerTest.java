@@ -0,0 +1,159 @@
+package com.priceprocessor.services.clients;
+
+import com.priceprocessor.config.ScraperProperties;
+import com.priceprocessor.exceptions.crawler.ScraperUnavailableException;
+import com.priceprocessor.services.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ScraperCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(15);
+
+    @Mock
+    private MetricsService metricsService;
+
+    private final AtomicLong clock = new AtomicLong();
+    private ScraperCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        ScraperProperties.CircuitBreaker config = new ScraperProperties.CircuitBreaker();
+        config.setSlidingWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setSlowCallThreshold(Duration.ofSeconds(10));
+        config.setSlowCallRateThreshold(75);
+        config.setOpenDuration(Duration.ofSeconds(30));
+        config.setHalfOpenCalls(2);
+
+        circuitBreaker = new ScraperCircuitBreaker(config, metricsService, clock::get);
+    }
+
+    @Test
+    void shouldStayClosed_UntilMinimumCallsAreRecorded() {
+        // Act
+        callFailing(3);
+
+        // Assert
+        assertThat(circuitBreaker.getState()).isEqualTo(ScraperCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldOpenAndFailFast_WhenFailureRateReachesThreshold() {
+        // Arrange
+        callSucceeding(2, FAST);
+
+        // Act
+        callFailing(2);
+
+        // Assert
+        assertThat(circuitBreaker.getState()).isEqualTo(ScraperCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.isCallPermitted()).isFalse();
+        assertThatThrownBy(() -> circuitBreaker.acquirePermission()).isInstanceOf(ScraperUnavailableException.class);
+        verify(metricsService).recordScraperCircuitTransition("CLOSED", "OPEN");
+        verify(metricsService).incrementScraperCircuitRejected();
+    }
+
+    @Test
+    void shouldOpen_WhenSlowCallRateReachesThreshold() {
+        // Act
+        callSucceeding(1, FAST);
+        callSucceeding(3, SLOW);
+
+        // Assert
+        assertThat(circuitBreaker.getState()).isEqualTo(ScraperCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldForgetOldOutcomes_WhenWindowSlides() {
+        // Arrange
+        callSucceeding(6, FAST);
+        callFailing(4);
+
+        // Act
+        callSucceeding(6, FAST);
+        // Each of these pushes one of the earlier failures out of the window, so the rate stays at 40%
+        callFailing(4);
+
+        // Assert
+        assertThat(circuitBreaker.getState()).isEqualTo(ScraperCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldCloseAgain_WhenHalfOpenProbesSucceed() {
+        // Arrange
+        callFailing(4);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        // Act
+        circuitBreaker.acquirePermission();
+        circuitBreaker.acquirePermission();
+        assertThatThrownBy(() -> circuitBreaker.acquirePermission()).isInstanceOf(ScraperUnavailableException.class);
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+
+        // Assert
+        assertThat(circuitBreaker.getState()).isEqualTo(ScraperCircuitBreaker.State.CLOSED);
+        verify(metricsService).recordScraperCircuitTransition("OPEN", "HALF_OPEN");
+        verify(metricsService).recordScraperCircuitTransition("HALF_OPEN", "CLOSED");
+    }
+
+    @Test
+    void shouldReopen_WhenHalfOpenProbeFails() {
+        // Arrange
+        callFailing(4);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        // Act
+        circuitBreaker.acquirePermission();
+        circuitBreaker.onFailure(FAST);
+
+        // Assert
+        assertThat(circuitBreaker.getState()).isEqualTo(ScraperCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.isCallPermitted()).isFalse();
+    }
+
+    @Test
+    void shouldFreeProbeSlot_WhenPermissionIsReleased() {
+        // Arrange
+        callFailing(4);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        circuitBreaker.acquirePermission();
+        circuitBreaker.acquirePermission();
+
+        // Act
+        circuitBreaker.releasePermission();
+
+        // Assert
+        circuitBreaker.acquirePermission();
+        assertThat(circuitBreaker.getState()).isEqualTo(ScraperCircuitBreaker.State.HALF_OPEN);
+    }
+
+    private void callSucceeding(int calls, long durationNanos) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.acquirePermission();
+            circuitBreaker.onSuccess(durationNanos);
+        }
+    }
+
+    private void callFailing(int calls) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.acquirePermission();
+            circuitBreaker.onFailure(FAST);
+        }
+    }
+}
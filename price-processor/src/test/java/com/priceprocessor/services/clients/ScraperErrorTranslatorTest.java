@@ -0,0 +1,67 @@
+package com.priceprocessor.services.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.priceprocessor.dtos.errors.ScraperErrorCode;
+import com.priceprocessor.dtos.errors.ScraperErrorResponse;
+import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
+import com.priceprocessor.exceptions.crawler.InvalidStoreUrlException;
+import com.priceprocessor.exceptions.crawler.ScraperException;
+import com.priceprocessor.services.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ScraperErrorTranslatorTest {
+
+    @Mock
+    private MetricsService metricsService;
+
+    private ScraperErrorTranslator translator;
+
+    @BeforeEach
+    void setUp() {
+        translator = new ScraperErrorTranslator(new ObjectMapper(), metricsService);
+    }
+
+    @Test
+    void shouldMapEveryErrorCode_ToTheExceptionCallersHandle() {
+        // Act & Assert
+        assertThat(translate(ScraperErrorCode.PRODUCT_NOT_FOUND)).isInstanceOf(ProductNotFoundInStoreException.class);
+        assertThat(translate(ScraperErrorCode.INVALID_DOMAIN)).isInstanceOf(InvalidStoreUrlException.class);
+        assertThat(translate(ScraperErrorCode.MISSING_PARAM)).isInstanceOf(InvalidStoreUrlException.class);
+        assertThat(translate(ScraperErrorCode.PRICE_PARSING_ERROR)).isExactlyInstanceOf(ScraperException.class).hasMessage("Invalid price found");
+        assertThat(translate(ScraperErrorCode.CONNECTION_ERROR)).isExactlyInstanceOf(ScraperException.class).hasMessage("Scraper is unreachable");
+        assertThat(translate(ScraperErrorCode.SCRAPING_ERROR)).isExactlyInstanceOf(ScraperException.class).hasMessageContaining("Unknown error");
+    }
+
+    @Test
+    void shouldParseRawBody_AndIncrementErrorMetric() {
+        // Act
+        RuntimeException error = translator.translate(404, "{\"errorCode\":\"PRODUCT_NOT_FOUND\",\"message\":\"Could not find item\"}");
+
+        // Assert
+        assertThat(error).isInstanceOf(ProductNotFoundInStoreException.class);
+        verify(metricsService).incrementScraperError("PRODUCT_NOT_FOUND");
+    }
+
+    @Test
+    void shouldReturnScraperException_WhenBodyIsNotAnErrorResponse() {
+        // Act
+        RuntimeException error = translator.translate(404, "<html>Not Found</html>");
+
+        // Assert
+        assertThat(error).isExactlyInstanceOf(ScraperException.class).hasMessageContaining("Unknown format");
+        verifyNoInteractions(metricsService);
+    }
+
+    private RuntimeException translate(ScraperErrorCode code) {
+        return translator.translate(new ScraperErrorResponse(code, "message"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.priceprocessor.services.clients;
+
+import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.exceptions.PriceFetchException;
+import com.priceprocessor.services.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ScraperRequestCoalescerTest {
+
+    private static final PriceResponse RESPONSE = new PriceResponse("Iphone 15", new BigDecimal("3999.00"), "PLN", "https://www.ceneo.pl/1");
+
+    @Mock
+    private MetricsService metricsService;
+
+    private ScraperRequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new ScraperRequestCoalescer(metricsService, Duration.ofMillis(200));
+    }
+
+    @Test
+    void shouldShareLeadersResult_WithCallerJoiningWhileInFlight() throws Exception {
+        // Arrange
+        ScraperRequestCoalescer.Flight leader = coalescer.start("url:https://www.ceneo.pl/1");
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        CompletableFuture<Optional<PriceResponse>> joined = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("url:https://www.ceneo.pl/1", () -> {
+                    calls.incrementAndGet();
+                    return Optional.empty();
+                }));
+        verify(metricsService, timeout(5000)).incrementScraperRequestCoalescing(true);
+        leader.succeed(Optional.of(RESPONSE));
+
+        // Assert
+        assertThat(leader.isLeader()).isTrue();
+        assertThat(joined.get(5, TimeUnit.SECONDS)).contains(RESPONSE);
+        assertThat(calls).hasValue(0);
+        verify(metricsService).incrementScraperRequestCoalescing(false);
+    }
+
+    @Test
+    void shouldPropagateLeadersError_ToEveryWaiter() {
+        // Arrange
+        ScraperRequestCoalescer.Flight leader = coalescer.start("search:iphone 15");
+        ScraperRequestCoalescer.Flight first = coalescer.start("search:iphone 15");
+        ScraperRequestCoalescer.Flight second = coalescer.start("search:iphone 15");
+        PriceFetchException error = new PriceFetchException("Scraper network error (timeout/unreachable)");
+
+        // Act
+        leader.fail(error);
+
+        // Assert
+        assertThat(first.isLeader()).isFalse();
+        assertThatThrownBy(first::await).isSameAs(error);
+        assertThatThrownBy(second::await).isSameAs(error);
+    }
+
+    @Test
+    void shouldReleaseKey_OnceCallHasFinished() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        coalescer.execute("url:a", () -> Optional.of(RESPONSE));
+        assertThatThrownBy(() -> coalescer.execute("url:a", () -> {
+            calls.incrementAndGet();
+            throw new PriceFetchException("Scraper network error (timeout/unreachable)");
+        })).isInstanceOf(PriceFetchException.class);
+        Optional<PriceResponse> result = coalescer.execute("url:a", () -> {
+            calls.incrementAndGet();
+            return Optional.of(RESPONSE);
+        });
+
+        // Assert
+        assertThat(result).contains(RESPONSE);
+        assertThat(calls).hasValue(2);
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void shouldReleaseKeyAndFailWaiters_WhenCallThrowsError() {
+        // Arrange
+        ScraperRequestCoalescer.Flight[] waiter = new ScraperRequestCoalescer.Flight[1];
+
+        // Act
+        assertThatThrownBy(() -> coalescer.execute("url:a", () -> {
+            waiter[0] = coalescer.start("url:a");
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+
+        // Assert
+        assertThat(coalescer.inFlightCount()).isZero();
+        assertThatThrownBy(waiter[0]::await)
+                .isInstanceOf(PriceFetchException.class)
+                .hasCauseInstanceOf(StackOverflowError.class);
+    }
+
+    @Test
+    void shouldStopWaiting_WhenCallInFlightDoesNotFinishInTime() {
+        // Arrange
+        coalescer.start("url:a");
+        ScraperRequestCoalescer.Flight waiter = coalescer.start("url:a");
+
+        // Act & Assert
+        assertThatThrownBy(waiter::await)
+                .isInstanceOf(PriceFetchException.class)
+                .hasMessageContaining("Timed out");
+    }
+
+    @Test
+    void shouldTimeOutAsyncWaiter_WhenCallInFlightDoesNotFinishInTime() {
+        // Arrange
+        coalescer.start("url:a");
+        ScraperRequestCoalescer.Flight waiter = coalescer.start("url:a");
+
+        // Act
+        CompletableFuture<Optional<PriceResponse>> future = waiter.future();
+
+        // Assert
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(PriceFetchException.class)
+                .hasMessageContaining("Timed out");
+    }
+
+    @Test
+    void shouldKeyUrlsCanonically_AndQueriesNormalized() {
+        // Act & Assert
+        assertThat(ScraperRequestCoalescer.urlKey("https://WWW.ceneo.pl/1?utm_source=mail"))
+                .isEqualTo(ScraperRequestCoalescer.urlKey("https://www.ceneo.pl/1"));
+        assertThat(ScraperRequestCoalescer.searchKey("  Iphone  15 "))
+                .isEqualTo(ScraperRequestCoalescer.searchKey("iphone 15"));
+        assertThat(ScraperRequestCoalescer.urlKey("iphone 15")).isNotEqualTo(ScraperRequestCoalescer.searchKey("iphone 15"));
+    }
+}
@@ -0,0 +1,141 @@
+package com.priceprocessor.services.clients;
+
+import com.priceprocessor.config.ScraperProperties;
+import com.priceprocessor.dtos.crawler.PriceResponse;
+import com.priceprocessor.exceptions.PriceFetchException;
+import com.priceprocessor.exceptions.ProductNotFoundInStoreException;
+import com.priceprocessor.services.MetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class SearchResultCacheTest {
+
+    private static final PriceResponse RESPONSE = new PriceResponse("Iphone 15 128GB", new BigDecimal("3999.00"), "PLN", "https://www.ceneo.pl/1");
+
+    private final AtomicLong nanoClock = new AtomicLong();
+    private final AtomicInteger searches = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ScraperProperties.SearchCache config = new ScraperProperties.SearchCache();
+        config.setMaximumSize(100);
+        config.setTtl(Duration.ofMinutes(10));
+        config.setNotFoundTtl(Duration.ofMinutes(2));
+
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SearchResultCache(config, new MetricsService(meterRegistry), nanoClock::get);
+    }
+
+    @Test
+    void shouldSearchOnce_ForQueriesThatOnlyDifferInCaseAndWhitespace() {
+        // Act
+        cache.get("Iphone 15 128GB", found());
+        Optional<PriceResponse> result = cache.get("  iphone   15 128gb", found());
+
+        // Assert
+        assertThat(result).contains(RESPONSE);
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    void shouldSearchAgain_WhenTtlHasPassed() {
+        // Arrange
+        cache.get("Iphone 15", found());
+
+        // Act
+        advance(Duration.ofMinutes(9));
+        cache.get("Iphone 15", found());
+        advance(Duration.ofMinutes(2));
+        cache.get("Iphone 15", found());
+
+        // Assert
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void shouldAnswerNotFoundFromCache_UntilShorterNotFoundTtlHasPassed() {
+        // Arrange
+        Throwable first = catchThrowable(() -> cache.get("Unicorn", notFound()));
+
+        // Act & Assert
+        advance(Duration.ofMinutes(1));
+        Throwable cached = catchThrowable(() -> cache.get("unicorn", notFound()));
+        assertThat(cached).isInstanceOf(ProductNotFoundInStoreException.class)
+                .isNotSameAs(first)
+                .hasMessageContaining("unicorn");
+        assertThat(catchThrowable(() -> cache.get("unicorn", notFound()))).isNotSameAs(cached);
+        assertThat(searches).hasValue(1);
+
+        advance(Duration.ofMinutes(2));
+        assertThat(cache.get("Unicorn", found())).contains(RESPONSE);
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void shouldNotCacheOtherErrors_OrEmptyResponses() {
+        // Arrange
+        Supplier<Optional<PriceResponse>> failing = () -> {
+            searches.incrementAndGet();
+            throw new PriceFetchException("Scraper network error (timeout/unreachable)");
+        };
+        Supplier<Optional<PriceResponse>> empty = () -> {
+            searches.incrementAndGet();
+            return Optional.empty();
+        };
+
+        // Act
+        assertThatThrownBy(() -> cache.get("Iphone 15", failing)).isInstanceOf(PriceFetchException.class);
+        cache.get("Iphone 15", empty);
+        Optional<PriceResponse> result = cache.get("Iphone 15", found());
+
+        // Assert
+        assertThat(result).contains(RESPONSE);
+        assertThat(searches).hasValue(3);
+    }
+
+    @Test
+    void shouldExportHitAndMissCounts() {
+        // Act
+        cache.get("Iphone 15", found());
+        cache.get("Iphone 15", found());
+        cache.get("Iphone 15", found());
+
+        // Assert
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "scraper.search.cache").tag("result", "hit").functionCounter().count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "scraper.search.cache").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+
+    private Supplier<Optional<PriceResponse>> found() {
+        return () -> {
+            searches.incrementAndGet();
+            return Optional.of(RESPONSE);
+        };
+    }
+
+    private Supplier<Optional<PriceResponse>> notFound() {
+        return () -> {
+            searches.incrementAndGet();
+            throw new ProductNotFoundInStoreException("Could not find item");
+        };
+    }
+
+    private void advance(Duration duration) {
+        nanoClock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,142 @@
+package com.priceprocessor.services.clients;
+
+import com.priceprocessor.config.ScraperProperties;
+import com.priceprocessor.exceptions.crawler.RateLimitExceededException;
+import com.priceprocessor.services.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StoreRateLimiterTest {
+
+    @Mock
+    private MetricsService metricsService;
+
+    private ScraperProperties.RateLimit rateLimit;
+    private final AtomicLong clock = new AtomicLong();
+    private StoreRateLimiter storeRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimit = new ScraperProperties.RateLimit();
+        rateLimit.getDefaultLimit().setPermitsPerSecond(20);
+        rateLimit.getDefaultLimit().setBurst(1);
+        rateLimit.setMaxWait(Duration.ofSeconds(5));
+
+        storeRateLimiter = new StoreRateLimiter(rateLimit, metricsService, clock::get);
+    }
+
+    @Test
+    void shouldWaitForPermit_WhenBurstIsUsedUp() {
+        // Arrange
+        storeRateLimiter.acquireForUrl("https://www.ceneo.pl/1");
+        long startedAt = System.nanoTime();
+
+        // Act
+        storeRateLimiter.acquireForUrl("https://www.ceneo.pl/2");
+
+        // Assert
+        assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+        ArgumentCaptor<Duration> waitCaptor = ArgumentCaptor.forClass(Duration.class);
+        verify(metricsService, times(2)).recordScraperRateLimitWait(eq("ceneo.pl"), waitCaptor.capture());
+        assertThat(waitCaptor.getAllValues().get(0)).isZero();
+        assertThat(waitCaptor.getAllValues().get(1)).isBetween(Duration.ofMillis(49), Duration.ofMillis(51));
+    }
+
+    @Test
+    void shouldCompleteAsyncPermitLater_WithoutBlockingCaller_WhenBurstIsUsedUp() throws Exception {
+        // Arrange
+        CompletableFuture<Void> first = storeRateLimiter.acquireForUrlAsync("https://www.ceneo.pl/1");
+        long startedAt = System.nanoTime();
+
+        // Act
+        CompletableFuture<Void> second = storeRateLimiter.acquireForUrlAsync("https://www.ceneo.pl/2");
+
+        // Assert
+        assertThat(first).isCompleted();
+        assertThat(System.nanoTime() - startedAt).isLessThan(Duration.ofMillis(40).toNanos());
+        second.get(1, TimeUnit.SECONDS);
+        assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+    }
+
+    @Test
+    void shouldFailAsyncPermit_WhenWaitWouldExceedMaxWait() {
+        // Arrange
+        rateLimit.setMaxWait(Duration.ofMillis(10));
+        storeRateLimiter.acquireForUrlAsync("https://www.ceneo.pl/1");
+
+        // Act
+        CompletableFuture<Void> rejected = storeRateLimiter.acquireForUrlAsync("https://www.ceneo.pl/2");
+
+        // Assert
+        assertThat(rejected).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RateLimitExceededException.class);
+        verify(metricsService).incrementScraperRateLimitRejected("ceneo.pl");
+    }
+
+    @Test
+    void shouldKeepSeparateBuckets_PerStoreDomain() {
+        // Act
+        storeRateLimiter.acquireForUrl("https://www.ceneo.pl/1");
+        storeRateLimiter.acquireForUrl("https://allegro.pl/oferta/1");
+
+        // Assert
+        verify(metricsService).recordScraperRateLimitWait("ceneo.pl", Duration.ZERO);
+        verify(metricsService).recordScraperRateLimitWait("allegro.pl", Duration.ZERO);
+    }
+
+    @Test
+    void shouldShareCeneoBucket_BetweenSearchAndUrlCalls() {
+        // Arrange
+        rateLimit.setMaxWait(Duration.ZERO);
+        storeRateLimiter.acquireForSearch();
+
+        // Act & Assert
+        assertThatThrownBy(() -> storeRateLimiter.acquireForUrl("https://www.ceneo.pl/1"))
+                .isInstanceOf(RateLimitExceededException.class)
+                .hasMessageContaining("ceneo.pl");
+        verify(metricsService).incrementScraperRateLimitRejected("ceneo.pl");
+    }
+
+    @Test
+    void shouldApplyDomainOverride_InsteadOfDefaultLimit() {
+        // Arrange
+        ScraperProperties.Limit allegroLimit = new ScraperProperties.Limit();
+        allegroLimit.setPermitsPerSecond(1);
+        allegroLimit.setBurst(3);
+        rateLimit.getDomains().put("allegro.pl", allegroLimit);
+        rateLimit.setMaxWait(Duration.ZERO);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            storeRateLimiter.acquireForUrl("https://allegro.pl/oferta/" + i);
+        }
+
+        // Assert
+        assertThatThrownBy(() -> storeRateLimiter.acquireForUrl("https://allegro.pl/oferta/4"))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void shouldExtractDomainWithoutWwwPrefix() {
+        // Act & Assert
+        assertThat(StoreRateLimiter.domainOf("https://WWW.Ceneo.pl/123?x=1")).isEqualTo("ceneo.pl");
+        assertThat(StoreRateLimiter.domainOf("not a url")).isEqualTo("unknown");
+    }
+}
@@ -0,0 +1,56 @@
+package com.priceprocessor.services.clients;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    @Test
+    void shouldServeBurstImmediately_ThenSpaceOutReservations() {
+        // Arrange
+        TokenBucket bucket = new TokenBucket(2.0, 2, 0);
+
+        // Act & Assert
+        assertThat(bucket.reserve(0, NO_LIMIT)).isZero();
+        assertThat(bucket.reserve(0, NO_LIMIT)).isZero();
+        assertThat(bucket.reserve(0, NO_LIMIT)).isCloseTo(SECOND / 2, within(1L));
+        assertThat(bucket.reserve(0, NO_LIMIT)).isCloseTo(SECOND, within(1L));
+    }
+
+    @Test
+    void shouldRefillOverTime_UpToBurst() {
+        // Arrange
+        TokenBucket bucket = new TokenBucket(1.0, 2, 0);
+        bucket.reserve(0, NO_LIMIT);
+        bucket.reserve(0, NO_LIMIT);
+
+        // Act
+        long afterIdle = 10 * SECOND;
+
+        // Assert
+        assertThat(bucket.reserve(afterIdle, NO_LIMIT)).isZero();
+        assertThat(bucket.reserve(afterIdle, NO_LIMIT)).isZero();
+        assertThat(bucket.reserve(afterIdle, NO_LIMIT)).isCloseTo(SECOND, within(1L));
+    }
+
+    @Test
+    void shouldRejectWithoutTakingToken_WhenWaitExceedsLimit() {
+        // Arrange
+        TokenBucket bucket = new TokenBucket(1.0, 1, 0);
+        bucket.reserve(0, NO_LIMIT);
+
+        // Act
+        long rejected = bucket.reserve(0, SECOND / 2);
+
+        // Assert
+        assertThat(rejected).isEqualTo(-1);
+        assertThat(bucket.reserve(0, NO_LIMIT)).isCloseTo(SECOND, within(1L));
+    }
+}
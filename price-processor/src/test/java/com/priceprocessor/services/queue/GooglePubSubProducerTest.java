@@ -1,8 +1,11 @@
 package com.priceprocessor.services.queue;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.pubsub.v1.Publisher;
 import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import com.google.cloud.spring.pubsub.support.PublisherFactory;
+import com.priceprocessor.dtos.queue.EmailNotification;
 import com.priceprocessor.exceptions.NotificationServiceException;
 import com.priceprocessor.services.MetricsService;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,11 +16,23 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,7 +42,9 @@ class GooglePubSubProducerTest {
     private PubSubTemplate pubSubTemplate;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private PublisherFactory publisherFactory;
+    @Mock
+    private NotificationSerializer notificationSerializer;
     @Mock
     private MetricsService metricsService;
 
@@ -49,16 +66,16 @@ class GooglePubSubProducerTest {
         String body = "Price dropped!";
         String expectedJson = "{\"to\":\"user@test.com\"...}";
 
-        when(objectMapper.writeValueAsString(any(Map.class))).thenReturn(expectedJson);
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn(expectedJson);
 
         when(pubSubTemplate.publish(TOPIC_NAME, expectedJson))
                 .thenReturn(CompletableFuture.completedFuture("message-id-123"));
 
         // Act
-        producer.sendEmailNotification(to, subject, body);
+        producer.sendEmailNotification(notification(to, subject, body));
 
         // Assert
-        verify(objectMapper).writeValueAsString(any(Map.class));
+        verify(notificationSerializer).serialize(any(EmailNotification.class));
         verify(pubSubTemplate).publish(TOPIC_NAME, expectedJson);
     }
 
@@ -69,11 +86,11 @@ class GooglePubSubProducerTest {
         String subject = "Price Alert";
         String body = "Price dropped!";
 
-        when(objectMapper.writeValueAsString(any(Map.class)))
+        when(notificationSerializer.serialize(any(EmailNotification.class)))
                 .thenThrow(new JsonProcessingException("Serialization error") {});
 
         // Act & Assert
-        assertThatThrownBy(() -> producer.sendEmailNotification(to, subject, body))
+        assertThatThrownBy(() -> producer.sendEmailNotification(notification(to, subject, body)))
                 .isInstanceOf(NotificationServiceException.class)
                 .hasMessageContaining("Failed to serialize");
 
@@ -88,16 +105,118 @@ class GooglePubSubProducerTest {
         String body = "Price dropped!";
         String validJson = "{}";
 
-        when(objectMapper.writeValueAsString(any(Map.class))).thenReturn(validJson);
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn(validJson);
 
         when(pubSubTemplate.publish(anyString(), anyString()))
                 .thenThrow(new RuntimeException("PubSub connection failed"));
 
         // Act & Assert
-        assertThatThrownBy(() -> producer.sendEmailNotification(to, subject, body))
+        assertThatThrownBy(() -> producer.sendEmailNotification(notification(to, subject, body)))
                 .isInstanceOf(NotificationServiceException.class)
                 .hasMessageContaining("Failed to publish message");
 
         verify(pubSubTemplate).publish(TOPIC_NAME, validJson);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnFailedFuture_WhenBrokerRejectsMessage() throws Exception {
+        // Arrange
+        String validJson = "{}";
+
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn(validJson);
+        when(pubSubTemplate.publish(TOPIC_NAME, validJson))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Pub/Sub unavailable")));
+
+        // Act
+        CompletableFuture<Void> acknowledged = producer.sendEmailNotification(notification("user@example.com", "Sub", "Body"));
+
+        // Assert
+        assertThat(acknowledged).isCompletedExceptionally();
+    }
+
+    @Test
+    void shouldPublishWithRecipientOrderingKey_WhenOrderingIsEnabled() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(producer, "orderingEnabled", true);
+        String to = "user@test.com";
+
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn("{}");
+        when(pubSubTemplate.publish(TOPIC_NAME, "{}", Map.of(GcpPubSubHeaders.ORDERING_KEY, to)))
+                .thenReturn(CompletableFuture.completedFuture("message-id-123"));
+
+        // Act
+        CompletableFuture<Void> acknowledged = producer.sendEmailNotification(notification(to, "Subject", "Body"));
+
+        // Assert
+        assertThat(acknowledged).isCompleted();
+        verify(pubSubTemplate, never()).publish(anyString(), anyString());
+        verify(metricsService).recordNotificationPublishLatency(eq("pubsub"), any(Duration.class));
+    }
+
+    @Test
+    void shouldResumeOrderingKey_WhenOrderedPublishFails() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(producer, "orderingEnabled", true);
+        String to = "user@test.com";
+        Publisher publisher = mock(Publisher.class);
+
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn("{}");
+        when(pubSubTemplate.publish(eq(TOPIC_NAME), eq("{}"), anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Pub/Sub unavailable")));
+        when(publisherFactory.createPublisher(TOPIC_NAME)).thenReturn(publisher);
+
+        // Act
+        CompletableFuture<Void> acknowledged = producer.sendEmailNotification(notification(to, "Subject", "Body"));
+
+        // Assert
+        assertThat(acknowledged).isCompletedExceptionally();
+        verify(publisher).resumePublish(to);
+    }
+
+    @Test
+    void shouldAcknowledgeEveryMessage_WhenPublishingConcurrentlyUnderLoad() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(producer, "orderingEnabled", true);
+        int senders = 8;
+        int messagesPerSender = 500;
+        ExecutorService broker = Executors.newFixedThreadPool(4);
+        ExecutorService callers = Executors.newFixedThreadPool(senders);
+        Set<String> orderingKeys = ConcurrentHashMap.newKeySet();
+
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn("{}");
+        when(pubSubTemplate.publish(eq(TOPIC_NAME), eq("{}"), anyMap())).thenAnswer(invocation -> {
+            Map<String, String> headers = invocation.getArgument(2);
+            orderingKeys.add(headers.get(GcpPubSubHeaders.ORDERING_KEY));
+            // Acknowledged on another thread, like the real publisher's batching executor
+            return CompletableFuture.supplyAsync(() -> "message-id", broker);
+        });
+
+        try {
+            // Act
+            long startedAt = System.nanoTime();
+            List<CompletableFuture<CompletableFuture<Void>>> sends = new ArrayList<>();
+            for (int sender = 0; sender < senders; sender++) {
+                String to = "user" + sender + "@test.com";
+                for (int i = 0; i < messagesPerSender; i++) {
+                    sends.add(CompletableFuture.supplyAsync(() -> producer.sendEmailNotification(notification(to, "Subject", "Body")), callers));
+                }
+            }
+            List<CompletableFuture<Void>> acknowledgements = sends.stream().map(CompletableFuture::join).toList();
+            CompletableFuture.allOf(acknowledgements.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+
+            // Assert
+            assertThat(acknowledgements).allMatch(ack -> ack.isDone() && !ack.isCompletedExceptionally());
+            assertThat(orderingKeys).hasSize(senders);
+            assertThat(elapsed).isLessThan(Duration.ofSeconds(10));
+            verify(metricsService, times(senders * messagesPerSender)).incrementMailQueueSuccess();
+        } finally {
+            callers.shutdownNow();
+            broker.shutdownNow();
+        }
+    }
+
+    private EmailNotification notification(String to, String subject, String body) {
+        return EmailNotification.of("dedupe-id", to, subject, body);
+    }
+}
@@ -1,24 +1,26 @@
 package com.priceprocessor.services.queue;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.priceprocessor.dtos.queue.EmailNotification;
 import com.priceprocessor.exceptions.NotificationServiceException;
 import com.priceprocessor.services.MetricsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.Map;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,18 +30,17 @@ class KafkaNotificationProducerTest {
     private KafkaTemplate<String, String> kafkaTemplate;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private NotificationSerializer notificationSerializer;
     @Mock
     private MetricsService metricsService;
 
-    @InjectMocks
     private KafkaNotificationProducer producer;
 
     private static final String TOPIC_NAME = "test-price-notifications";
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(producer, "topicName", TOPIC_NAME);
+        producer = createProducer(1000);
     }
 
     @Test
@@ -50,17 +51,18 @@ class KafkaNotificationProducerTest {
         String body = "Price dropped";
         String expectedJson = "{\"to\":\"user@example.com\",\"subject\":\"Price Drop Alert!\"...}";
 
-        when(objectMapper.writeValueAsString(any(Map.class))).thenReturn(expectedJson);
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn(expectedJson);
 
-        when(kafkaTemplate.send(TOPIC_NAME, expectedJson))
+        when(kafkaTemplate.send(TOPIC_NAME, to, expectedJson))
                 .thenReturn(CompletableFuture.completedFuture(null));
 
         // Act
-        producer.sendEmailNotification(to, subject, body);
+        producer.sendEmailNotification(notification(to, subject, body));
 
         // Assert
-        verify(objectMapper).writeValueAsString(any(Map.class));
-        verify(kafkaTemplate).send(TOPIC_NAME, expectedJson);
+        verify(notificationSerializer).serialize(any(EmailNotification.class));
+        verify(kafkaTemplate).send(TOPIC_NAME, to, expectedJson);
+        verify(metricsService).recordNotificationPublishLatency(eq("kafka"), any(Duration.class));
     }
 
     @Test
@@ -70,16 +72,16 @@ class KafkaNotificationProducerTest {
         String subject = "Test";
         String body = "Body";
 
-        when(objectMapper.writeValueAsString(any(Map.class)))
+        when(notificationSerializer.serialize(any(EmailNotification.class)))
                 .thenThrow(new JsonProcessingException("Error mapping") {});
 
         // Act & Assert
-        assertThatThrownBy(() -> producer.sendEmailNotification(to, subject, body))
+        assertThatThrownBy(() -> producer.sendEmailNotification(notification(to, subject, body)))
                 .isInstanceOf(NotificationServiceException.class)
                 .hasMessageContaining("Failed to serialize");
 
         // Upewniamy się, że nie wysłano nic do Kafki
-        verify(kafkaTemplate, never()).send(anyString(), anyString());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
     }
 
     @Test
@@ -88,16 +90,85 @@ class KafkaNotificationProducerTest {
         String to = "user@example.com";
         String validJson = "{}";
 
-        when(objectMapper.writeValueAsString(any(Map.class))).thenReturn(validJson);
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn(validJson);
 
-        when(kafkaTemplate.send(anyString(), anyString()))
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
                 .thenThrow(new RuntimeException("Kafka connection error"));
 
         // Act & Assert
-        assertThatThrownBy(() -> producer.sendEmailNotification(to, "Sub", "Body"))
+        assertThatThrownBy(() -> producer.sendEmailNotification(notification(to, "Sub", "Body")))
                 .isInstanceOf(NotificationServiceException.class)
                 .hasMessageContaining("Failed to send message to Kafka");
 
-        verify(kafkaTemplate).send(TOPIC_NAME, validJson);
+        verify(kafkaTemplate).send(TOPIC_NAME, to, validJson);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnFailedFuture_WhenBrokerRejectsMessage() throws Exception {
+        // Arrange
+        String validJson = "{}";
+
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn(validJson);
+        when(kafkaTemplate.send(TOPIC_NAME, "user@example.com", validJson))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Kafka unavailable")));
+
+        // Act
+        CompletableFuture<Void> acknowledged = producer.sendEmailNotification(notification("user@example.com", "Sub", "Body"));
+
+        // Assert
+        assertThat(acknowledged).isCompletedExceptionally();
+    }
+
+    @Test
+    void shouldRejectNotification_WhenTooManySendsAreUnacknowledged() throws Exception {
+        // Arrange
+        producer = createProducer(1);
+        ReflectionTestUtils.setField(producer, "inFlightWait", Duration.ofMillis(50));
+
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn("{}");
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(new CompletableFuture<>());
+
+        producer.sendEmailNotification(notification("first@example.com", "Sub", "Body"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> producer.sendEmailNotification(notification("second@example.com", "Sub", "Body")))
+                .isInstanceOf(NotificationServiceException.class)
+                .hasMessageContaining("Too many unacknowledged");
+
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), anyString());
+        verify(metricsService).incrementMailQueueFailure("InFlightLimit");
+    }
+
+    @Test
+    void shouldReleaseInFlightPermit_WhenSendIsAcknowledged() throws Exception {
+        // Arrange
+        producer = createProducer(1);
+        ReflectionTestUtils.setField(producer, "inFlightWait", Duration.ofMillis(50));
+        CompletableFuture<SendResult<String, String>> firstAck = new CompletableFuture<>();
+
+        when(notificationSerializer.serialize(any(EmailNotification.class))).thenReturn("{}");
+        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenReturn(firstAck, CompletableFuture.completedFuture(null));
+
+        producer.sendEmailNotification(notification("first@example.com", "Sub", "Body"));
+        firstAck.complete(null);
+
+        // Act
+        CompletableFuture<Void> acknowledged = producer.sendEmailNotification(notification("second@example.com", "Sub", "Body"));
+
+        // Assert
+        assertThat(acknowledged).isCompleted();
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), anyString());
+    }
+
+    private KafkaNotificationProducer createProducer(int maxInFlight) {
+        KafkaNotificationProducer kafkaProducer =
+                new KafkaNotificationProducer(kafkaTemplate, notificationSerializer, metricsService, maxInFlight);
+        ReflectionTestUtils.setField(kafkaProducer, "topicName", TOPIC_NAME);
+        return kafkaProducer;
+    }
+
+    private EmailNotification notification(String to, String subject, String body) {
+        return EmailNotification.of("dedupe-id", to, subject, body);
+    }
+}
@@ -0,0 +1,278 @@
+package com.priceprocessor.services.queue;
+
+import com.priceprocessor.config.NotificationOutboxProperties;
+import com.priceprocessor.dtos.queue.EmailNotification;
+import com.priceprocessor.models.OutboxNotification;
+import com.priceprocessor.repositories.OutboxNotificationRepository;
+import com.priceprocessor.services.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxRelayTest {
+
+    @Mock
+    private OutboxNotificationRepository outboxNotificationRepository;
+    @Mock
+    private NotificationProducer notificationProducer;
+    @Mock
+    private MetricsService metricsService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationOutboxRelay relay;
+    private NotificationOutboxProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationOutboxProperties();
+        properties.setBatchSize(10);
+        properties.setPublishTimeout(Duration.ofMillis(200));
+        properties.setRetryBackoff(Duration.ofSeconds(30));
+        properties.setMaxBackoff(Duration.ofMinutes(5));
+        properties.setMaxAttempts(3);
+
+        relay = new NotificationOutboxRelay(outboxNotificationRepository, notificationProducer, metricsService,
+                properties, new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void shouldDeleteNotification_WhenBrokerAcknowledgesIt() {
+        // Arrange
+        OutboxNotification notification = createNotification(1L, 0);
+        givenDueNotifications(List.of(notification));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        int delivered = relay.relayPending();
+
+        // Assert
+        assertThat(delivered).isEqualTo(1);
+        ArgumentCaptor<EmailNotification> messageCaptor = ArgumentCaptor.forClass(EmailNotification.class);
+        verify(notificationProducer).sendEmailNotification(messageCaptor.capture());
+        assertThat(messageCaptor.getValue().to()).isEqualTo("user@test.com");
+        assertThat(messageCaptor.getValue().subject()).isEqualTo("Subject");
+        assertThat(messageCaptor.getValue().body()).isEqualTo("Body");
+        assertThat(messageCaptor.getValue().version()).isEqualTo(EmailNotification.CURRENT_VERSION);
+        verify(outboxNotificationRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(metricsService).recordNotificationOutboxLag(any(Duration.class));
+        verify(metricsService, never()).incrementNotificationOutboxRetry(anyString());
+    }
+
+    @Test
+    void shouldClaimNotificationsWithLease_BeforePublishing() {
+        // Arrange
+        OutboxNotification notification = createNotification(1L, 0);
+        LocalDateTime before = LocalDateTime.now();
+        givenDueNotifications(List.of(notification));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenAnswer(invocation -> {
+                    assertThat(notification.getNextAttemptAt()).isAfterOrEqualTo(before.plus(properties.getLeaseDuration()));
+                    return CompletableFuture.completedFuture(null);
+                });
+
+        // Act
+        int delivered = relay.relayPending();
+
+        // Assert
+        assertThat(delivered).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRescheduleWithBackoff_WhenPublishFails() {
+        // Arrange
+        OutboxNotification notification = createNotification(1L, 1);
+        givenDueNotifications(List.of(notification));
+        when(outboxNotificationRepository.findAllById(anyIterable())).thenReturn(List.of(notification));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Broker down")));
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        int delivered = relay.relayPending();
+
+        // Assert
+        assertThat(delivered).isZero();
+        assertThat(notification.getAttempts()).isEqualTo(2);
+        assertThat(notification.getLastError()).isEqualTo("IllegalStateException");
+        assertThat(notification.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(60));
+        verify(outboxNotificationRepository, never()).deleteAllByIdInBatch(anyIterable());
+        verify(metricsService).incrementNotificationOutboxRetry("IllegalStateException");
+    }
+
+    @Test
+    void shouldRetry_WhenProducerThrowsSynchronously() {
+        // Arrange
+        OutboxNotification notification = createNotification(1L, 0);
+        givenDueNotifications(List.of(notification));
+        when(outboxNotificationRepository.findAllById(anyIterable())).thenReturn(List.of(notification));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenThrow(new RuntimeException("Serialization failed"));
+
+        // Act
+        relay.relayPending();
+
+        // Assert
+        assertThat(notification.getAttempts()).isEqualTo(1);
+        assertThat(notification.isParked()).isFalse();
+    }
+
+    @Test
+    void shouldTreatMissingAcknowledgement_AsFailure() {
+        // Arrange
+        OutboxNotification notification = createNotification(1L, 0);
+        givenDueNotifications(List.of(notification));
+        when(outboxNotificationRepository.findAllById(anyIterable())).thenReturn(List.of(notification));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        // Act
+        int delivered = relay.relayPending();
+
+        // Assert
+        assertThat(delivered).isZero();
+        assertThat(notification.getLastError()).isEqualTo("PublishTimeout");
+    }
+
+    @Test
+    void shouldParkNotification_WhenAttemptsAreExhausted() {
+        // Arrange
+        OutboxNotification notification = createNotification(1L, 2);
+        givenDueNotifications(List.of(notification));
+        when(outboxNotificationRepository.findAllById(anyIterable())).thenReturn(List.of(notification));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Broker down")));
+
+        // Act
+        relay.relayPending();
+
+        // Assert
+        assertThat(notification.isParked()).isTrue();
+        assertThat(notification.getAttempts()).isEqualTo(3);
+        verify(metricsService).incrementNotificationOutboxParked();
+    }
+
+    @Test
+    void shouldKeepDraining_WhileBatchesAreFull() {
+        // Arrange
+        properties.setBatchSize(1);
+        when(outboxNotificationRepository.findDueNotifications(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(createNotification(1L, 0)), List.of(createNotification(2L, 0)), Collections.emptyList());
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        int delivered = relay.relayPending();
+
+        // Assert
+        assertThat(delivered).isEqualTo(2);
+        verify(outboxNotificationRepository, times(3)).findDueNotifications(any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    @Test
+    void shouldSendOneDigestPerRecipient_WhenDigestIsEnabled() {
+        // Arrange
+        properties.getDigest().setEnabled(true);
+        OutboxNotification first = createNotification(1L, 0);
+        OutboxNotification second = createNotification(2L, 0);
+        second.setBody("Second body");
+        OutboxNotification other = createNotification(3L, 0);
+        other.setRecipient("other@test.com");
+
+        givenDueNotifications(List.of(first, second, other));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        int delivered = relay.relayPending();
+
+        // Assert
+        assertThat(delivered).isEqualTo(3);
+        ArgumentCaptor<EmailNotification> messageCaptor = ArgumentCaptor.forClass(EmailNotification.class);
+        verify(notificationProducer, times(2)).sendEmailNotification(messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues())
+                .extracting(EmailNotification::to, EmailNotification::subject, EmailNotification::body)
+                .containsExactly(
+                        tuple("user@test.com", "Subject (2 updates)", "Body\nSecond body"),
+                        tuple("other@test.com", "Subject", "Body"));
+        verify(metricsService).incrementNotificationDigestMessagesSaved(1);
+        verify(metricsService, times(3)).recordNotificationOutboxLag(any(Duration.class));
+    }
+
+    @Test
+    void shouldRetryEveryNotificationOfDigest_WhenDigestPublishFails() {
+        // Arrange
+        properties.getDigest().setEnabled(true);
+        OutboxNotification first = createNotification(1L, 0);
+        OutboxNotification second = createNotification(2L, 0);
+
+        givenDueNotifications(List.of(first, second));
+        when(outboxNotificationRepository.findAllById(anyIterable())).thenReturn(List.of(first, second));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Broker down")));
+
+        // Act
+        relay.relayPending();
+
+        // Assert
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(second.getAttempts()).isEqualTo(1);
+        verify(notificationProducer, times(1)).sendEmailNotification(any(EmailNotification.class));
+    }
+
+    @Test
+    void shouldKeepDedupeId_WhenSameNotificationIsRetried() {
+        // Arrange
+        OutboxNotification notification = createNotification(1L, 0);
+        givenDueNotifications(List.of(notification));
+        when(outboxNotificationRepository.findAllById(anyIterable())).thenReturn(List.of(notification));
+        when(notificationProducer.sendEmailNotification(any(EmailNotification.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Broker down")),
+                        CompletableFuture.completedFuture(null));
+
+        // Act
+        relay.relayPending();
+        relay.relayPending();
+
+        // Assert
+        ArgumentCaptor<EmailNotification> messageCaptor = ArgumentCaptor.forClass(EmailNotification.class);
+        verify(notificationProducer, times(2)).sendEmailNotification(messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues().get(0).dedupeId())
+                .isNotBlank()
+                .isEqualTo(messageCaptor.getAllValues().get(1).dedupeId());
+    }
+
+    private void givenDueNotifications(List<OutboxNotification> notifications) {
+        when(outboxNotificationRepository.findDueNotifications(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(notifications);
+    }
+
+    private OutboxNotification createNotification(Long id, int attempts) {
+        OutboxNotification notification = OutboxNotification.pending(
+                "user@test.com", "Subject", "Body", LocalDateTime.now().minusMinutes(1));
+        notification.setId(id);
+        notification.setAttempts(attempts);
+        return notification;
+    }
+}
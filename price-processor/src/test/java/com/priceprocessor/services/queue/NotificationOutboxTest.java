@@ -0,0 +1,76 @@
+package com.priceprocessor.services.queue;
+
+import com.priceprocessor.config.NotificationOutboxProperties;
+import com.priceprocessor.models.OutboxNotification;
+import com.priceprocessor.repositories.OutboxNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxTest {
+
+    @Mock
+    private OutboxNotificationRepository outboxNotificationRepository;
+
+    private NotificationOutbox notificationOutbox;
+    private NotificationOutboxProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationOutboxProperties();
+        notificationOutbox = new NotificationOutbox(outboxNotificationRepository, properties);
+    }
+
+    @Test
+    void shouldStoreNotificationDueImmediately_WhenDigestIsDisabled() {
+        // Arrange
+        when(outboxNotificationRepository.save(any(OutboxNotification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        OutboxNotification notification = notificationOutbox.enqueue("user@test.com", "Subject", "Body");
+
+        // Assert
+        assertThat(notification.getRecipient()).isEqualTo("user@test.com");
+        assertThat(notification.getAttempts()).isZero();
+        assertThat(notification.getNextAttemptAt()).isEqualTo(notification.getCreatedAt());
+        assertThat(notification.getCreatedAt()).isAfterOrEqualTo(before);
+    }
+
+    @Test
+    void shouldAlignDeliveryToWindowEnd_WhenDigestIsEnabled() {
+        // Arrange
+        properties.getDigest().setEnabled(true);
+        properties.getDigest().setWindow(Duration.ofMinutes(5));
+
+        // Act
+        LocalDateTime first = notificationOutbox.deliverAt(LocalDateTime.of(2025, 1, 1, 12, 0, 1));
+        LocalDateTime second = notificationOutbox.deliverAt(LocalDateTime.of(2025, 1, 1, 12, 4, 59));
+        LocalDateTime next = notificationOutbox.deliverAt(LocalDateTime.of(2025, 1, 1, 12, 5, 0));
+
+        // Assert
+        assertThat(first).isEqualTo(LocalDateTime.of(2025, 1, 1, 12, 5, 0));
+        assertThat(second).isEqualTo(first);
+        assertThat(next).isEqualTo(LocalDateTime.of(2025, 1, 1, 12, 10, 0));
+    }
+
+    @Test
+    void shouldDeliverImmediately_WhenDigestWindowIsZero() {
+        // Arrange
+        properties.getDigest().setEnabled(true);
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0, 1);
+
+        // Act & Assert
+        assertThat(notificationOutbox.deliverAt(now)).isEqualTo(now);
+    }
+}
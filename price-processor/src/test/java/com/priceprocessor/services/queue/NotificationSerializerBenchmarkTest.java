@@ -0,0 +1,90 @@
+package com.priceprocessor.services.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.priceprocessor.dtos.queue.EmailNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the per-message cost of the previous payload, a {@link HashMap} serialized through the shared
+ * {@link ObjectMapper}, with {@link NotificationSerializer}'s writer bound to {@link EmailNotification}.
+ * Both are warmed up first; time and allocated bytes are measured on the calling thread.
+ * Timing-sensitive, so it is left out of {@code mvn test}; run it with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@Slf4j
+class NotificationSerializerBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 200_000;
+
+    private static final EmailNotification NOTIFICATION = EmailNotification.of(
+            "outbox-42", "user@test.com", "Price Drop Alert!", "Price for Iphone 15 dropped from 3999.00 to 3499.00");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NotificationSerializer notificationSerializer = new NotificationSerializer(objectMapper);
+
+    @Test
+    void shouldAllocateLessPerMessage_ThanSerializingAMap() throws Exception {
+        // Arrange
+        Serialization viaMap = () -> objectMapper.writeValueAsString(asMap(NOTIFICATION));
+        Serialization viaWriter = () -> notificationSerializer.serialize(NOTIFICATION);
+
+        // Act
+        Run map = measure(viaMap);
+        Run writer = measure(viaWriter);
+
+        log.info(String.format("map:    %6.1f ns/op, %5d bytes/op", map.nanosPerOp(), map.bytesPerOp()));
+        log.info(String.format("writer: %6.1f ns/op, %5d bytes/op", writer.nanosPerOp(), writer.bytesPerOp()));
+
+        // Assert
+        assertThat(objectMapper.readTree(viaWriter.serialize())).isEqualTo(objectMapper.readTree(viaMap.serialize()));
+        assertThat(writer.bytesPerOp()).isLessThan(map.bytesPerOp());
+    }
+
+    private Run measure(Serialization serialization) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long sink = 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += serialization.serialize().length();
+        }
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += serialization.serialize().length();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertThat(sink).isPositive();
+        return new Run((double) elapsedNanos / MEASURED_ITERATIONS, allocated / MEASURED_ITERATIONS);
+    }
+
+    // The payload the producers built before the typed record
+    private Map<String, Object> asMap(EmailNotification notification) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("version", notification.version());
+        message.put("dedupeId", notification.dedupeId());
+        message.put("to", notification.to());
+        message.put("subject", notification.subject());
+        message.put("body", notification.body());
+        return message;
+    }
+
+    @FunctionalInterface
+    private interface Serialization {
+        String serialize() throws Exception;
+    }
+
+    private record Run(double nanosPerOp, long bytesPerOp) {}
+}
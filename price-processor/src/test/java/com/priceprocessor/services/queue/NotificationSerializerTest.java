@@ -0,0 +1,42 @@
+package com.priceprocessor.services.queue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.priceprocessor.dtos.queue.EmailNotification;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NotificationSerializer serializer = new NotificationSerializer(objectMapper);
+
+    @Test
+    void shouldWriteFieldsReadByEmailSender_AlongWithVersionAndDedupeId() throws Exception {
+        // Arrange
+        EmailNotification notification = EmailNotification.of("dedupe-1", "user@test.com", "Price Drop Alert!", "Price dropped");
+
+        // Act
+        JsonNode json = objectMapper.readTree(serializer.serialize(notification));
+
+        // Assert
+        assertThat(json.get("to").asText()).isEqualTo("user@test.com");
+        assertThat(json.get("subject").asText()).isEqualTo("Price Drop Alert!");
+        assertThat(json.get("body").asText()).isEqualTo("Price dropped");
+        assertThat(json.get("dedupeId").asText()).isEqualTo("dedupe-1");
+        assertThat(json.get("version").asInt()).isEqualTo(EmailNotification.CURRENT_VERSION);
+    }
+
+    @Test
+    void shouldRoundTripNotification() throws Exception {
+        // Arrange
+        EmailNotification notification = EmailNotification.of("dedupe-1", "user@test.com", "Subject", "Line 1\nLine 2");
+
+        // Act
+        EmailNotification read = objectMapper.readValue(serializer.serialize(notification), EmailNotification.class);
+
+        // Assert
+        assertThat(read).isEqualTo(notification);
+    }
+}
@@ -160,6 +160,11 @@ resource "google_cloud_run_v2_service" "backend" {
     containers {
       image = "us-docker.pkg.dev/cloudrun/container/hello"
 
+      # The cron endpoint returns 202 and keeps updating prices in the background
+      resources {
+        cpu_idle = false
+      }
+
       volume_mounts {
         name       = "cloudsql"
         mount_path = "/cloudsql"
@@ -178,9 +183,11 @@ resource "google_cloud_run_v2_service" "backend" {
         value = var.db_password
       }
     }
+    # Price update jobs live in the database and products are claimed with leases (SKIP LOCKED),
+    # so any instance can run or report a job and instances can share a backlog
     scaling {
       min_instance_count = 0
-      max_instance_count = 1
+      max_instance_count = 3
     }
   }
   depends_on = [google_project_service.run_api, google_sql_database_instance.instance]